@@ -0,0 +1,66 @@
+package com.example.demo.bench;
+
+import com.example.demo.DemoApplication;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+
+/**
+ * 基准测试用的进程内 Neo4j（neo4j-harness，仅 Bolt，不启动 HTTP）和连到它的 Spring 上下文（不启动 Web 服务器）
+ * 每个 JMH fork 在 @Setup(Level.Trial) 中启动一次，@TearDown 中关闭
+ */
+public final class EmbeddedNeo4j implements AutoCloseable {
+
+    private final Neo4j neo4j;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedNeo4j(Neo4j neo4j, ConfigurableApplicationContext context) {
+        this.neo4j = neo4j;
+        this.context = context;
+    }
+
+    public static EmbeddedNeo4j start() {
+        Neo4j neo4j = Neo4jBuilders.newInProcessBuilder()
+                .withDisabledServer()
+                .build();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.neo4j.uri=" + neo4j.boltURI(),
+                        "spring.data.neo4j.uri=" + neo4j.boltURI(),
+                        "logging.level.root=WARN")
+                .run();
+        return new EmbeddedNeo4j(neo4j, context);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 清空数据库（保留约束和索引）
+     */
+    public void clear() {
+        long deleted;
+        do {
+            deleted = neo4j.defaultDatabaseService().executeTransactionally(
+                    "MATCH (n) WITH n LIMIT 10000 DETACH DELETE n RETURN count(*) AS c",
+                    Collections.emptyMap(), result -> (Long) result.next().get("c"));
+        } while (deleted > 0);
+    }
+
+    public long nodeCount() {
+        return neo4j.defaultDatabaseService().executeTransactionally("MATCH (n) RETURN count(n) AS c",
+                Collections.emptyMap(), result -> (Long) result.next().get("c"));
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        neo4j.close();
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.RdfService;
+import org.apache.jena.riot.Lang;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RdfService.exportToTurtle / exportStream 基准：嵌入式 Neo4j 中预先导入合成数据，反复导出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class RdfExportBenchmark {
+
+    @Param({"1000", "100000"})
+    public long triples;
+
+    private EmbeddedNeo4j neo4j;
+    private RdfService rdfService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        neo4j = EmbeddedNeo4j.start();
+        rdfService = neo4j.bean(RdfService.class);
+        rdfService.importRdf(SyntheticData.generate(triples, 42), "text/turtle");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        neo4j.close();
+    }
+
+    @Benchmark
+    public String exportToTurtle() {
+        return rdfService.exportToTurtle();
+    }
+
+    @Benchmark
+    public void exportStreamNTriples() throws Exception {
+        rdfService.exportStream(OutputStream.nullOutputStream(), Lang.NTRIPLES);
+    }
+}
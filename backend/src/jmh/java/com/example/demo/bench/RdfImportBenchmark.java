@@ -0,0 +1,62 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.RdfService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RdfService.importRdf / importRdfStream 基准：每次测量前清空嵌入式 Neo4j，测量一次完整导入
+ * （SingleShotTime，多次迭代给出延迟分布）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 8)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class RdfImportBenchmark {
+
+    /** 合成数据三元组数；更大规模用 -p triples=1000000,10000000（需相应调大 -Xmx） */
+    @Param({"1000", "100000"})
+    public long triples;
+
+    private EmbeddedNeo4j neo4j;
+    private RdfService rdfService;
+    private String data;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        neo4j = EmbeddedNeo4j.start();
+        rdfService = neo4j.bean(RdfService.class);
+        data = SyntheticData.generate(triples, 42);
+        file = SyntheticData.generateFile(triples, 42);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        neo4j.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        neo4j.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Object importRdf() {
+        return rdfService.importRdf(data, "text/turtle");
+    }
+
+    @Benchmark
+    public Object importRdfStream() throws Exception {
+        try (InputStream in = Files.newInputStream(file)) {
+            return rdfService.importRdfStream(in, "application/n-triples");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.ReasoningService;
+import com.example.demo.service.ReasoningService.ReasonerType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReasoningService.performReasoning 基准：合成数据规模 × 推理器类型（CUSTOM 使用过户流程规则）
+ * 需要在仓库根目录运行（读取 ontology/ 下的过户流程规则），-Pbenchmark 已配置工作目录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class ReasoningBenchmark {
+
+    @Param({"1000", "100000"})
+    public long triples;
+
+    @Param({"RDFS", "OWL_MICRO", "CUSTOM"})
+    public ReasonerType reasonerType;
+
+    private EmbeddedNeo4j neo4j;
+    private ReasoningService reasoningService;
+    private String data;
+    private String rules;
+
+    @Setup(Level.Trial)
+    public void start() {
+        neo4j = EmbeddedNeo4j.start();
+        reasoningService = neo4j.bean(ReasoningService.class);
+        data = SyntheticData.generate(triples, 42);
+        rules = reasoningService.loadTransferProcessRules();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        neo4j.close();
+    }
+
+    @Benchmark
+    public String performReasoning() {
+        return reasoningService.performReasoning(data, reasonerType, reasonerType == ReasonerType.CUSTOM ? rules : "");
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.ReasoningService;
+import com.example.demo.service.ReasoningService.ReasonerType;
+import com.example.demo.service.RuleEngineConfig;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 过户流程规则在各 GenericRuleReasoner 模式下的推理耗时
+ * BACKWARD / HYBRID 对规则头谓词做表格化，否则前向写法的规则在后向求值时不终止
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class RuleEngineModeBenchmark {
+
+    /** 过户流程数 */
+    @Param({"100", "10000"})
+    public int processes;
+
+    @Param({"FORWARD", "FORWARD_RETE", "BACKWARD", "HYBRID"})
+    public RuleEngineConfig.Mode mode;
+
+    private EmbeddedNeo4j neo4j;
+    private ReasoningService reasoningService;
+    private Model data;
+    private String rules;
+    private RuleEngineConfig engine;
+
+    @Setup(Level.Trial)
+    public void start() {
+        neo4j = EmbeddedNeo4j.start();
+        reasoningService = neo4j.bean(ReasoningService.class);
+        data = RDFParser.fromString(SyntheticData.transferProcesses(processes, 42)).lang(Lang.NTRIPLES).toModel();
+        rules = reasoningService.loadTransferProcessRules();
+        engine = RuleEngineConfig.of(mode);
+        if (mode == RuleEngineConfig.Mode.BACKWARD || mode == RuleEngineConfig.Mode.HYBRID) {
+            engine = engine.withTabled(RuleEngineConfig.predicates(Rule.parseRules(rules), true));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        neo4j.close();
+    }
+
+    @Benchmark
+    public Model reason() {
+        return reasoningService.materialize(reasoningService.reason(data, ReasonerType.CUSTOM, rules, null, engine));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * 基准测试用合成数据（N-Triples，也是合法的 Turtle）
+ * 按目标三元组数生成：约 5% 本体（类层次、属性定义域/值域），其余为过户流程实例——
+ * 每个流程包含原客户、目标客户及其属性，与 test-minimal-input.ttl 的结构一致，
+ * 因此过户流程规则（transfer-process-rules.rules）能在每个流程上触发
+ */
+public final class SyntheticData {
+
+    public static final String CRM = "http://example.com/crm/transfer#";
+    private static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final String SUBCLASS = "<http://www.w3.org/2000/01/rdf-schema#subClassOf>";
+    private static final String DOMAIN = "<http://www.w3.org/2000/01/rdf-schema#domain>";
+    private static final String RANGE = "<http://www.w3.org/2000/01/rdf-schema#range>";
+    private static final String OWL_CLASS = "<http://www.w3.org/2002/07/owl#Class>";
+    private static final String XSD_STRING = "^^<http://www.w3.org/2001/XMLSchema#string>";
+    private static final String XSD_BOOLEAN = "^^<http://www.w3.org/2001/XMLSchema#boolean>";
+
+    /** 每个过户流程（含两个客户）的三元组数 */
+    public static final int TRIPLES_PER_PROCESS = 12;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * 生成约 targetTriples 个三元组的数据集
+     */
+    public static String generate(long targetTriples, long seed) {
+        StringBuilder sb = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 8, targetTriples * 110));
+        write(sb, targetTriples, seed);
+        return sb.toString();
+    }
+
+    /**
+     * 生成到文件（大数据量时避免整个数据集驻留在一个字符串里）
+     */
+    public static Path generateFile(long targetTriples, long seed) throws IOException {
+        Path file = Files.createTempFile("synthetic-" + targetTriples + "-", ".nt");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(out, targetTriples, seed);
+        }
+        return file;
+    }
+
+    /**
+     * 只生成本体：classes 个类组成的类层次（每个类随机选一个已有父类），每个类两个属性
+     */
+    public static String ontology(int classes, long seed) {
+        StringBuilder sb = new StringBuilder(classes * 400);
+        writeOntology(sb, classes, new Random(seed));
+        return sb.toString();
+    }
+
+    /**
+     * 只生成过户流程实例（不含本体）
+     */
+    public static String transferProcesses(int processes, long seed) {
+        StringBuilder sb = new StringBuilder(processes * TRIPLES_PER_PROCESS * 110);
+        Random random = new Random(seed);
+        for (int i = 0; i < processes; i++) {
+            writeProcess(sb, i, random);
+        }
+        return sb.toString();
+    }
+
+    private static void write(Appendable out, long targetTriples, long seed) {
+        Random random = new Random(seed);
+        // 本体约占 5%，每个类 5 个三元组
+        int classes = (int) Math.max(4, Math.min(100_000, targetTriples / 20 / 5));
+        writeOntology(out, classes, random);
+        long processes = Math.max(1, (targetTriples - classes * 5L) / TRIPLES_PER_PROCESS);
+        for (long i = 0; i < processes; i++) {
+            writeProcess(out, i, random);
+        }
+    }
+
+    private static void writeOntology(Appendable out, int classes, Random random) {
+        for (int c = 0; c < classes; c++) {
+            String cls = iri("Class_" + c);
+            triple(out, cls, RDF_TYPE, OWL_CLASS);
+            triple(out, cls, SUBCLASS, c == 0 ? iri("TransferProcess") : iri("Class_" + random.nextInt(c)));
+            triple(out, iri("prop_" + c), DOMAIN, cls);
+            triple(out, iri("prop_" + c), RANGE, iri("Class_" + random.nextInt(c + 1)));
+            triple(out, iri("attr_" + c), DOMAIN, cls);
+        }
+    }
+
+    private static void writeProcess(Appendable out, long i, Random random) {
+        String process = iri("TransferProcess_" + i);
+        String original = iri("OriginalCustomer_" + i);
+        String target = iri("TargetCustomer_" + i);
+
+        triple(out, original, RDF_TYPE, iri("OriginalCustomer"));
+        triple(out, original, iri("hasIDCardNumber"), literal(String.format("1101011990%08d", i % 100_000_000L), XSD_STRING));
+        triple(out, original, iri("hasBusinessNumber"), literal(String.valueOf(13_800_000_000L + i), XSD_STRING));
+        // 约 10% 的原客户有欠费或在途单，触发违规规则
+        triple(out, original, iri("hasArrearsStatus"), literal(String.valueOf(random.nextInt(20) == 0), XSD_BOOLEAN));
+        triple(out, original, iri("hasPendingOrderStatus"), literal(String.valueOf(random.nextInt(20) == 0), XSD_BOOLEAN));
+
+        triple(out, target, RDF_TYPE, iri("TargetCustomer"));
+        triple(out, target, iri("hasIDCardNumber"), literal(String.format("1101011995%08d", i % 100_000_000L), XSD_STRING));
+        triple(out, target, iri("hasBusinessNumber"), literal(String.valueOf(13_900_000_000L + i), XSD_STRING));
+
+        triple(out, process, RDF_TYPE, iri("TransferProcess"));
+        triple(out, process, iri("relatesOriginalCustomer"), original);
+        triple(out, process, iri("relatesTargetCustomer"), target);
+        triple(out, process, iri("requestedBy"), literal("tenant-" + (i % 16), XSD_STRING));
+    }
+
+    private static String iri(String localName) {
+        return "<" + CRM + localName + ">";
+    }
+
+    private static String literal(String value, String datatype) {
+        return "\"" + value + "\"" + datatype;
+    }
+
+    private static void triple(Appendable out, String s, String p, String o) {
+        try {
+            out.append(s).append(' ').append(p).append(' ').append(o).append(" .\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
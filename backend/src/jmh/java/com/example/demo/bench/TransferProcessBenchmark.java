@@ -0,0 +1,43 @@
+package com.example.demo.bench;
+
+import com.example.demo.service.ReasoningService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReasoningService.inferCompleteTransferProcess 基准：单个最小过户流程输入（与 /infer-transfer-process 相同）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx2g"})
+public class TransferProcessBenchmark {
+
+    private EmbeddedNeo4j neo4j;
+    private ReasoningService reasoningService;
+    private String minimalInput;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        neo4j = EmbeddedNeo4j.start();
+        reasoningService = neo4j.bean(ReasoningService.class);
+        minimalInput = new String(Files.readAllBytes(Paths.get("ontology/test-minimal-input.ttl")), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        neo4j.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> inferCompleteTransferProcess() {
+        return reasoningService.inferCompleteTransferProcess(minimalInput);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.config;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.github.luben.zstd.util.Native;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// HTTP content codings for RDF payloads: gzip (JDK) and zstd (zstd-jni, used only when its
+// native library loads). Request bodies are decoded by ContentEncodingFilter; responses are
+// encoded by the endpoints themselves, since streaming responses are written after the filter
+// chain has returned.
+public final class ContentCoding {
+    public static final String GZIP = "gzip";
+    public static final String ZSTD = "zstd";
+
+    // Bodies below this size are sent as they are
+    static final int MIN_SIZE = 1024;
+
+    private static final int ZSTD_LEVEL = 3;
+    private static final boolean ZSTD_AVAILABLE = zstdAvailable();
+
+    private ContentCoding() {
+    }
+
+    private static boolean zstdAvailable() {
+        try {
+            Native.load();
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // Wrap a request body according to its Content-Encoding (null or identity = as is)
+    public static InputStream decode(InputStream in, String contentEncoding) throws IOException {
+        String coding = contentEncoding == null ? "identity" : contentEncoding.trim().toLowerCase(Locale.ROOT);
+        switch (coding) {
+            case "":
+            case "identity":
+                return in;
+            case GZIP:
+            case "x-gzip":
+                return new GZIPInputStream(in, 64 * 1024);
+            case ZSTD:
+                if (ZSTD_AVAILABLE) return new ZstdInputStream(in);
+                // fall through
+            default:
+                throw new IllegalArgumentException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+    }
+
+    public static boolean isSupported(String contentEncoding) {
+        if (contentEncoding == null) return true;
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        return coding.isEmpty() || coding.equals("identity") || coding.equals(GZIP) || coding.equals("x-gzip")
+                || (coding.equals(ZSTD) && ZSTD_AVAILABLE);
+    }
+
+    // Pick the response coding from Accept-Encoding: zstd before gzip, codings with q=0 excluded;
+    // null means identity
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        boolean gzip = false;
+        boolean zstd = false;
+        boolean any = false;
+        boolean gzipRefused = false;
+        boolean zstdRefused = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean refused = false;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim().toLowerCase(Locale.ROOT);
+                if (p.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(p.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (coding.equals(ZSTD)) {
+                zstd = !refused;
+                zstdRefused = refused;
+            } else if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = !refused;
+                gzipRefused = refused;
+            } else if (coding.equals("*")) {
+                any = !refused;
+            }
+        }
+        // "*" stands for codings not listed explicitly
+        if ((zstd || (any && !zstdRefused)) && ZSTD_AVAILABLE) return ZSTD;
+        return gzip || (any && !gzipRefused) ? GZIP : null;
+    }
+
+    // Wrap a response stream in `coding` (null = as is). Closing the returned stream finishes
+    // the encoding but leaves `out` open, so the servlet container still owns the response.
+    public static OutputStream encode(OutputStream out, String coding) throws IOException {
+        if (coding == null) return out;
+        OutputStream target = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        switch (coding) {
+            case GZIP:
+                return new GZIPOutputStream(target, 64 * 1024, true);
+            case ZSTD:
+                return new ZstdOutputStream(target, ZSTD_LEVEL);
+            default:
+                throw new IllegalArgumentException("Unsupported content coding: " + coding);
+        }
+    }
+
+    // A complete response body, encoded when the client accepts a coding and the body is large
+    // enough to benefit
+    public static ResponseEntity<byte[]> body(ResponseEntity.BodyBuilder builder, byte[] body, String acceptEncoding) {
+        String coding = body.length < MIN_SIZE ? null : negotiate(acceptEncoding);
+        builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (coding == null) {
+            return builder.body(body);
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (OutputStream out = encode(encoded, coding)) {
+            out.write(body);
+        } catch (IOException e) {
+            // in-memory streams do not fail; keep the body unencoded if the codec does
+            return builder.body(body);
+        }
+        return builder.header(HttpHeaders.CONTENT_ENCODING, coding).body(encoded.toByteArray());
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.stream.Collectors;
+
+// Decodes gzip / zstd request bodies (Content-Encoding) for the API, so that imports and
+// reasoning requests can be uploaded compressed. The body is decoded while the handler reads
+// it; handlers see an identity-coded request without Content-Length. Unsupported codings get 415.
+// The decoded body is limited to `rdf.content-encoding.max-decoded-bytes`, since a small
+// compressed upload can expand to any size: reading past it fails, and the request ends with 413
+// whatever error status the handler chose. Non-blocking reads (setReadListener) are supported by
+// collecting the compressed body first and decoding it in memory, under the same limit.
+@Component
+public class ContentEncodingFilter extends OncePerRequestFilter {
+
+    @Value("${rdf.content-encoding.max-decoded-bytes:1073741824}")
+    private long maxDecodedBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || encoding.trim().isEmpty() || encoding.trim().equalsIgnoreCase("identity")
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (!ContentCoding.isSupported(encoding)) {
+            writeError(response, HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding");
+            return;
+        }
+        DecodedRequest decoded = new DecodedRequest(request, encoding, maxDecodedBytes);
+        try {
+            chain.doFilter(decoded, new LimitedResponse(response, decoded));
+        } catch (IOException | ServletException | RuntimeException e) {
+            if (!decoded.exceeded || response.isCommitted()) throw e;
+            response.reset();
+            writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, tooLarge(maxDecodedBytes));
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
+
+    private static String tooLarge(long limit) {
+        return "Decoded request body exceeds " + limit + " bytes";
+    }
+
+    // Turns the handler's error status into 413 once the decoded body went over the limit
+    private static final class LimitedResponse extends HttpServletResponseWrapper {
+        private final DecodedRequest request;
+
+        LimitedResponse(HttpServletResponse response, DecodedRequest request) {
+            super(response);
+            this.request = request;
+        }
+
+        private int status(int sc) {
+            return request.exceeded && sc >= 400 ? SC_REQUEST_ENTITY_TOO_LARGE : sc;
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            super.setStatus(status(sc));
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            super.sendError(status(sc));
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            super.sendError(status(sc), msg);
+        }
+    }
+
+    private static final class DecodedRequest extends HttpServletRequestWrapper {
+        private final String encoding;
+        private final long limit;
+        private volatile boolean exceeded;
+        private ServletInputStream stream;
+
+        DecodedRequest(HttpServletRequest request, String encoding, long limit) {
+            super(request);
+            this.encoding = encoding;
+            this.limit = limit;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                stream = new DecodingStream(super.getInputStream());
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String charset = getCharacterEncoding();
+            Charset cs = charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), cs));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return null;
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                return Collections.emptyEnumeration();
+            }
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(h -> !HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(h) && !HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(h))
+                    .collect(Collectors.toList()));
+        }
+
+        // Decoded body. Blocking reads decode straight from the raw stream; after setReadListener
+        // the compressed bytes are collected as the container delivers them and decoded once all
+        // have arrived, so reads never wait on the network
+        private final class DecodingStream extends ServletInputStream {
+            private final ServletInputStream raw;
+            private InputStream decoded;
+            private volatile boolean ready = true;
+            private boolean finished;
+            private long count;
+
+            DecodingStream(ServletInputStream raw) {
+                this.raw = raw;
+            }
+
+            private InputStream decoded() throws IOException {
+                if (decoded == null) decoded = ContentCoding.decode(raw, encoding);
+                return decoded;
+            }
+
+            private void count(long n) throws IOException {
+                count += n;
+                if (count > limit) {
+                    exceeded = true;
+                    throw new IOException(tooLarge(limit));
+                }
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = decoded().read();
+                finished = b < 0;
+                if (!finished) count(1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = decoded().read(b, off, len);
+                finished = n < 0;
+                if (n > 0) count(n);
+                return n;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return finished;
+            }
+
+            @Override
+            public boolean isReady() {
+                return ready;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                if (decoded != null) throw new IllegalStateException("Body is already being read");
+                ready = false;
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                raw.setReadListener(new ReadListener() {
+                    private final byte[] buffer = new byte[8192];
+
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        int n;
+                        while (raw.isReady() && (n = raw.read(buffer)) >= 0) {
+                            if (compressed.size() + n > limit) {
+                                exceeded = true;
+                                throw new IOException(tooLarge(limit));
+                            }
+                            compressed.write(buffer, 0, n);
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() throws IOException {
+                        decoded = ContentCoding.decode(new ByteArrayInputStream(compressed.toByteArray()), encoding);
+                        ready = true;
+                        listener.onDataAvailable();
+                        listener.onAllDataRead();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        listener.onError(t);
+                    }
+                });
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (decoded != null) decoded.close();
+                raw.close();
+            }
+        }
+    }
+}
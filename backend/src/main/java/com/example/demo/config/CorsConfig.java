@@ -1,13 +1,25 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class CorsConfig implements WebMvcConfigurer {
+    // Origins allowed to call /api/sparql; empty = same origin only
+    @Value("${sparql.cors.allowed-origins:}")
+    private String[] sparqlAllowedOrigins;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
+        // registered first: the first matching pattern wins, so /api/** does not apply here
+        registry.addMapping("/api/sparql/**")
+                .allowedOrigins(sparqlAllowedOrigins)
+                .allowedMethods("GET", "POST", "OPTIONS")
+                .allowedHeaders("*")
+                .allowCredentials(false)
+                .maxAge(3600);
         registry.addMapping("/api/**")
                 .allowedOrigins("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
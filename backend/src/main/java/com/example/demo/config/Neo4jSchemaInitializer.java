@@ -0,0 +1,102 @@
+package com.example.demo.config;
+
+import com.example.demo.service.InferenceWriter;
+import com.example.demo.service.RdfService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+// Bootstraps the Neo4j schema used by RDF import/export: every imported node carries the
+// `Resource` label and `iri` is unique for that label, so MATCH/MERGE on (n:Resource {iri})
+// is an index seek instead of a label-less node scan. All statements are idempotent.
+//
+// Migration for graphs imported before the label existed: nodes with an `iri` but without
+// `Resource` are relabelled in batches before the constraint is created. If duplicate iris
+// prevent the uniqueness constraint, a plain index is created instead and a warning logged.
+// Nodes with inferred properties written before InferenceWriter marked them get the marker too.
+@Component
+public class Neo4jSchemaInitializer {
+    private static final Logger log = LoggerFactory.getLogger(Neo4jSchemaInitializer.class);
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Value("${rdf.schema.bootstrap:true}")
+    private boolean bootstrap;
+
+    @Value("${rdf.schema.migrate-existing:true}")
+    private boolean migrateExisting;
+
+    @Value("${rdf.import.batch-size:5000}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!bootstrap) return;
+        try {
+            if (migrateExisting) {
+                long migrated = migrateUnlabelledNodes();
+                if (migrated > 0) log.info("Added :{} label to {} existing nodes", RdfService.RESOURCE_LABEL, migrated);
+                long marked = markInferredNodes();
+                if (marked > 0) log.info("Marked {} existing nodes with inferred properties", marked);
+            }
+            createIriConstraint();
+            createProvenanceIndex();
+        } catch (Exception e) {
+            // Neo4j may not be reachable yet; the application still starts and import works unindexed
+            log.warn("Neo4j schema bootstrap failed: {}", e.getMessage());
+        }
+    }
+
+    public long migrateUnlabelledNodes() {
+        String cy = String.format(
+                "MATCH (n) WHERE n.iri IS NOT NULL AND NOT n:`%1$s` WITH n LIMIT $limit SET n:`%1$s` RETURN count(n) AS c",
+                RdfService.RESOURCE_LABEL);
+        long total = 0;
+        while (true) {
+            Long c = neo4jClient.query(cy).bind(batchSize).to("limit")
+                    .fetchAs(Long.class).one().orElse(0L);
+            if (c == 0) return total;
+            total += c;
+        }
+    }
+
+    // Nodes written by InferenceWriter before it set the provenance marker
+    public long markInferredNodes() {
+        String cy = String.format(
+                "MATCH (n:`%1$s`) WHERE n.`%2$s` IS NULL AND any(k IN keys(n) WHERE k ENDS WITH '%3$s' AND k <> '%2$s') "
+                        + "WITH n LIMIT $limit SET n.`%2$s` = true RETURN count(n) AS c",
+                RdfService.RESOURCE_LABEL, InferenceWriter.PROV_MARKER, InferenceWriter.PROV_SUFFIX);
+        long total = 0;
+        while (true) {
+            Long c = neo4jClient.query(cy).bind(batchSize).to("limit")
+                    .fetchAs(Long.class).one().orElse(0L);
+            if (c == 0) return total;
+            total += c;
+        }
+    }
+
+    private void createIriConstraint() {
+        String label = RdfService.RESOURCE_LABEL;
+        try {
+            neo4jClient.query(String.format(
+                    "CREATE CONSTRAINT resource_iri_unique IF NOT EXISTS FOR (n:`%s`) REQUIRE n.iri IS UNIQUE", label)).run();
+        } catch (Exception e) {
+            log.warn("Could not create uniqueness constraint on :{}(iri), falling back to an index: {}", label, e.getMessage());
+            neo4jClient.query(String.format(
+                    "CREATE INDEX resource_iri_index IF NOT EXISTS FOR (n:`%s`) ON (n.iri)", label)).run();
+        }
+    }
+
+    // Retraction starts from the nodes carrying the provenance marker
+    private void createProvenanceIndex() {
+        neo4jClient.query(String.format(
+                "CREATE INDEX resource_prov_index IF NOT EXISTS FOR (n:`%s`) ON (n.`%s`)",
+                RdfService.RESOURCE_LABEL, InferenceWriter.PROV_MARKER)).run();
+    }
+}
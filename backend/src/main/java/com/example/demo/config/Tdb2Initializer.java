@@ -0,0 +1,40 @@
+package com.example.demo.config;
+
+import com.example.demo.service.RdfService;
+import com.example.demo.service.Tdb2Store;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Seeds the TDB2 store (rdf.tdb2.enabled) from Neo4j the first time it is opened, so that a store
+// enabled on an existing graph does not hold only the imports made since. The export runs on a
+// background thread; until it has finished, reasoning and the SPARQL snapshot keep loading from
+// Neo4j. If Neo4j is not reachable the store stays unseeded until the next start or until
+// POST /api/rdf/tdb2/seed.
+@Component
+public class Tdb2Initializer {
+    private static final Logger log = LoggerFactory.getLogger(Tdb2Initializer.class);
+
+    @Autowired
+    private Tdb2Store tdb2Store;
+
+    @Autowired
+    private RdfService rdfService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!tdb2Store.isEnabled() || tdb2Store.isSynced()) return;
+        Thread seeder = new Thread(() -> {
+            try {
+                rdfService.seedTdb2();
+            } catch (Exception e) {
+                log.warn("Seeding the TDB2 store from Neo4j failed: {}", e.getMessage());
+            }
+        }, "tdb2-seed");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+}
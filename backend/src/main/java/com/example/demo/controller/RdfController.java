@@ -1,45 +1,204 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.ContentCoding;
+import com.example.demo.service.GraphView;
+import com.example.demo.service.GraphViewService;
+import com.example.demo.service.ImportStats;
 import com.example.demo.service.RdfService;
+import com.example.demo.service.Tdb2Store;
+import org.apache.jena.riot.Lang;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/rdf")
 public class RdfController {
+    static final String RDF_THRIFT = "application/rdf+thrift";
+    static final String RDF_PROTOBUF = "application/rdf+protobuf";
+
     @Autowired
     private RdfService rdfService;
 
+    @Autowired
+    private GraphViewService graphViewService;
+
+    @Autowired
+    private Tdb2Store tdb2Store;
+
     // POST RDF data to import into Neo4j (supports Turtle, RDF/XML, JSON-LD, etc.)
     @PostMapping(value = "/import", consumes = {"text/turtle", "application/rdf+xml", "application/ld+json", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_XML_VALUE})
     public ResponseEntity<String> importRdf(@RequestBody String rdfContent, @RequestHeader(value = "Content-Type", required = false) String contentType) {
         try {
-            rdfService.importRdf(rdfContent, contentType);
-            return ResponseEntity.ok("RDF data imported successfully");
+            ImportStats stats = rdfService.importRdf(rdfContent, contentType);
+            return ResponseEntity.ok("RDF data imported successfully (" + stats + ")");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    // POST binary RDF (RDF Thrift / RDF Protobuf) to /import: binary bodies cannot be read as a
+    // String, so they take the streaming path
+    @PostMapping(value = "/import", consumes = {RDF_THRIFT, RDF_PROTOBUF})
+    public ResponseEntity<String> importRdfBinary(HttpServletRequest request) {
+        return importRdfStream(request);
+    }
+
+    // POST RDF data as a stream: the request body is parsed straight from the InputStream and
+    // flushed to Neo4j in bounded chunks (for large N-Triples/Turtle uploads and binary RDF).
+    // Bodies may be gzip / zstd encoded (Content-Encoding), see ContentEncodingFilter.
+    @PostMapping(value = "/import-stream", consumes = {"text/turtle", "application/n-triples", "application/rdf+xml", "application/ld+json", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_XML_VALUE, RDF_THRIFT, RDF_PROTOBUF})
+    public ResponseEntity<String> importRdfStream(HttpServletRequest request) {
+        try {
+            ImportStats stats = rdfService.importRdfStream(request.getInputStream(), request.getContentType());
+            return ResponseEntity.ok("RDF data imported successfully (" + stats + ")");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    // POST a large N-Triples / N-Quads body for the parallel importer: the upload is spooled to a
+    // temporary file and parsed in line-aligned segments on several threads
+    @PostMapping(value = "/import-parallel", consumes = {"application/n-triples", "application/n-quads"})
+    public ResponseEntity<String> importRdfParallel(HttpServletRequest request) {
+        try {
+            ImportStats stats = rdfService.importParallel(request.getInputStream(), request.getContentType());
+            return ResponseEntity.ok("RDF data imported successfully (" + stats + ")");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("Error: " + e.getMessage());
+        }
+    }
+
+    // POST to import a file staged on the server (name relative to rdf.import.parallel.staging-dir)
+    // with the parallel importer, without uploading it
+    @PostMapping(value = "/import-staged")
+    public ResponseEntity<String> importStaged(@RequestParam("file") String file) {
+        try {
+            ImportStats stats = rdfService.importStagedFile(file);
+            return ResponseEntity.ok("RDF data imported successfully (" + stats + ")");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
 
+    // GET the state of the TDB2 store (rdf.tdb2.*): directory, bulk loader, whether it is in sync, triple count
+    @GetMapping(value = "/tdb2", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> tdb2Status() {
+        return ResponseEntity.ok(tdb2Store.getStatus());
+    }
+
+    // POST to compact the TDB2 store, dropping the versions left behind by earlier transactions
+    @PostMapping(value = "/tdb2/compact", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> compactTdb2() {
+        if (!tdb2Store.isEnabled()) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "TDB2 store is disabled (rdf.tdb2.enabled)"));
+        }
+        try {
+            tdb2Store.compact();
+            return ResponseEntity.ok(tdb2Store.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
+    // POST to (re)seed the TDB2 store from Neo4j, e.g. after imports made while it was disabled;
+    // reasoning and SPARQL read Neo4j until it has finished
+    @PostMapping(value = "/tdb2/seed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> seedTdb2() {
+        if (!tdb2Store.isEnabled()) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", "TDB2 store is disabled (rdf.tdb2.enabled)"));
+        }
+        try {
+            rdfService.seedTdb2();
+            return ResponseEntity.ok(tdb2Store.getStatus());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
+
     // Legacy endpoint for backward compatibility
     @PostMapping(value = "/import-text", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<String> importTurtleText(@RequestBody String rdfContent) {
         return importRdf(rdfContent, "text/turtle");
     }
 
-    // GET export as turtle
+    // GET export as turtle, gzip / zstd encoded when the client accepts it
     @GetMapping(value = "/export", produces = "text/turtle")
-    public ResponseEntity<String> exportTurtle() {
+    public ResponseEntity<?> exportTurtle(@RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
         try {
             String turtle = rdfService.exportToTurtle();
-            return ResponseEntity.ok().contentType(MediaType.valueOf("text/turtle")).body(turtle);
+            return ContentCoding.body(ResponseEntity.ok().contentType(MediaType.valueOf("text/turtle")),
+                    turtle.getBytes(StandardCharsets.UTF_8), acceptEncoding);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
 
+    // GET export streamed page by page (format=turtle|ntriples|thrift|protobuf, or negotiated from
+    // Accept when no format is given); nothing is buffered server-side. The stream is gzip / zstd
+    // encoded on the fly when the client accepts it.
+    @GetMapping(value = "/export-stream", produces = {"text/turtle", "application/n-triples", RDF_THRIFT, RDF_PROTOBUF})
+    public ResponseEntity<StreamingResponseBody> exportStream(@RequestParam(value = "format", required = false) String format,
+                                                              @RequestHeader(value = "Accept", required = false) String accept,
+                                                              @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        Lang lang = exportLang(format, accept);
+        String coding = ContentCoding.negotiate(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            try (OutputStream encoded = ContentCoding.encode(out, coding)) {
+                rdfService.exportStream(encoded, lang);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf(lang.getHeaderString()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (coding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, coding);
+        }
+        return response.body(body);
+    }
+
+    private static Lang exportLang(String format, String accept) {
+        if (format != null) {
+            switch (format.toLowerCase()) {
+                case "ntriples":
+                case "nt":
+                    return Lang.NTRIPLES;
+                case "thrift":
+                    return Lang.RDFTHRIFT;
+                case "protobuf":
+                case "proto":
+                    return Lang.RDFPROTO;
+                default:
+                    return Lang.TURTLE;
+            }
+        }
+        if (accept != null) {
+            // first listed of the supported types wins
+            for (String type : accept.split(",")) {
+                String mime = type.split(";")[0].trim().toLowerCase();
+                if (mime.equals(RDF_THRIFT)) return Lang.RDFTHRIFT;
+                if (mime.equals(RDF_PROTOBUF)) return Lang.RDFPROTO;
+                if (mime.equals("application/n-triples")) return Lang.NTRIPLES;
+                if (mime.equals("text/turtle")) return Lang.TURTLE;
+            }
+        }
+        return Lang.TURTLE;
+    }
+
     // GET graph data for visualization
     @GetMapping(value = "/graph-data", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<?> getGraphData() {
@@ -50,4 +209,27 @@ public class RdfController {
             return ResponseEntity.status(500).body("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
+
+    // GET one page of graph data in columnar JSON (see GraphViewService): cursor pagination,
+    // optional neighbourhood of `root` up to `depth` hops, label / relationship-type filters,
+    // projected properties (`*` = all) and supernode collapsing above `maxDegree`
+    @GetMapping(value = "/graph-view", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getGraphView(@RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", defaultValue = "500") int limit,
+                                          @RequestParam(value = "root", required = false) String root,
+                                          @RequestParam(value = "depth", defaultValue = "1") int depth,
+                                          @RequestParam(value = "labels", required = false) List<String> labels,
+                                          @RequestParam(value = "types", required = false) List<String> types,
+                                          @RequestParam(value = "properties", required = false) List<String> properties,
+                                          @RequestParam(value = "maxDegree", defaultValue = "100") int maxDegree,
+                                          @RequestParam(value = "sample", defaultValue = "5") int sample) {
+        try {
+            GraphView view = new GraphView(cursor, limit, root, depth, labels, types, properties, maxDegree, sample);
+            return ResponseEntity.ok(graphViewService.getPage(view));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Collections.singletonMap("error", e.getMessage()));
+        }
+    }
 }
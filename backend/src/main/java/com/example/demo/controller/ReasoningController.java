@@ -1,15 +1,37 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.ContentCoding;
+import com.example.demo.service.GraphSelection;
+import com.example.demo.service.InferenceResultCache;
+import com.example.demo.service.ReasonerCache;
+import com.example.demo.service.ReasoningJob;
+import com.example.demo.service.ReasoningJobService;
 import com.example.demo.service.ReasoningService;
 import com.example.demo.service.ReasoningService.ReasonerType;
 import com.example.demo.service.RdfService;
+import com.example.demo.service.RuleEngineConfig;
+import com.example.demo.service.Tdb2Store;
+import com.example.demo.service.TransferBatchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 /**
  * 逻辑推理控制器
@@ -26,36 +48,119 @@ public class ReasoningController {
     @Autowired
     private RdfService rdfService;
     
+    @Autowired
+    private ReasonerCache reasonerCache;
+    
+    @Autowired
+    private InferenceResultCache resultCache;
+    
+    @Autowired
+    private ReasoningJobService reasoningJobService;
+    
+    @Autowired
+    private TransferBatchService transferBatchService;
+    
+    @Autowired
+    private Tdb2Store tdb2Store;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /** 从 Neo4j 加载数据时，每个节点折算的输入字节数（用于任务内存估算） */
+    private static final long NEO4J_BYTES_PER_NODE = 500;
+    
     /**
      * 执行推理
      * 
-     * @param request 包含 rdfData, reasonerType, customRules, saveToNeo4j, useNeo4jData 的请求体
-     * @return 推理结果
+     * @param request 包含 rdfData, reasonerType, customRules, saveToNeo4j, useNeo4jData, ontology, resultFormat 的请求体；
+     *                writeMode=incremental 时只写回推理增量（可选 scope 指定推导作用域）；
+     *                useNeo4jData 时可用 neo4jLabel / neo4jRootIri + neo4jDepth / neo4jCypher 只加载相关子图；
+     *                partitioned=true 时按连通分量（或 partitionKey 谓词）分区并行推理；
+     *                engine 指定 CUSTOM 规则引擎配置 {mode, tabled, derivationLogging, owlTranslation}，缺省按规则自动选择
+     * @return 推理结果（客户端接受时按 gzip / zstd 压缩）
      */
     @PostMapping(value = "/execute", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> executeReasoning(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> executeReasoning(@RequestBody Map<String, Object> request,
+                                              @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        ResponseEntity<?> response = execute(request);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        try {
+            return ContentCoding.body(ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON),
+                objectMapper.writeValueAsBytes(response.getBody()), acceptEncoding);
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(createErrorResponse("Reasoning failed: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 执行推理，结果数据直接以二进制 RDF 返回（Accept: application/rdf+thrift 或 application/rdf+protobuf），
+     * 不再以文本嵌入 JSON；请求体同 /execute，统计信息放在 X-Reasoning-* 响应头。
+     * 没有结果数据（增量写回）或出错时仍返回 JSON
+     */
+    @PostMapping(value = "/execute", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {"application/rdf+thrift", "application/rdf+protobuf"})
+    public ResponseEntity<?> executeReasoningBinary(@RequestBody Map<String, Object> request,
+                                                    @RequestHeader(value = "Accept", required = false) String accept,
+                                                    @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        Lang lang = reasoningService.resolveOutputLang(firstMediaType(accept));
+        if (!ReasoningService.isBinary(lang)) {
+            lang = Lang.RDFTHRIFT;
+        }
+        Map<String, Object> binaryRequest = new HashMap<>(request);
+        binaryRequest.put("resultFormat", lang.getHeaderString());
+        ResponseEntity<?> response = execute(binaryRequest);
+        Object body = response.getBody();
+        if (!response.getStatusCode().is2xxSuccessful() || !(body instanceof Map) || !(((Map<?, ?>) body).get("resultData") instanceof String)) {
+            return ResponseEntity.status(response.getStatusCode()).contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        Map<?, ?> result = (Map<?, ?>) body;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.valueOf(lang.getHeaderString()));
+        for (Map.Entry<?, ?> e : result.entrySet()) {
+            Object value = e.getValue();
+            String key = e.getKey().toString();
+            if (key.equals("resultData") || key.equals("resultEncoding")) continue;
+            // 只放标量，字符串限可打印 ASCII（错误信息等可能含中文）
+            if (value instanceof Number || value instanceof Boolean
+                || (value instanceof String && ((String) value).chars().allMatch(c -> c >= 0x20 && c < 0x7f))) {
+                builder.header("X-Reasoning-" + key, value.toString());
+            }
+        }
+        return ContentCoding.body(builder, Base64.getDecoder().decode((String) result.get("resultData")), acceptEncoding);
+    }
+    
+    private ResponseEntity<?> execute(Map<String, Object> request) {
         try {
             String rdfData = (String) request.get("rdfData");
             String reasonerTypeStr = (String) request.get("reasonerType");
-            String customRules = (String) request.getOrDefault("customRules", "");
             Boolean saveToNeo4j = Boolean.TRUE.equals(request.get("saveToNeo4j"));
             Boolean useNeo4jData = Boolean.TRUE.equals(request.get("useNeo4jData"));
+            boolean incremental = saveToNeo4j && "incremental".equalsIgnoreCase((String) request.get("writeMode"));
             
-            // 如果选择从 Neo4j 读取数据
-            if (Boolean.TRUE.equals(useNeo4jData)) {
+            // 如果选择从 Neo4j 读取数据：直接加载为模型，不经过 Turtle 文本；
+            // 启用 TDB2 且选择整个图时，在 TDB2 读事务内直接对其推理，不再从 Neo4j 分页加载；
+            // TDB2 尚未从 Neo4j 同步完成时仍从 Neo4j 加载
+            GraphSelection selection = graphSelection(request);
+            boolean fromTdb2 = useNeo4jData && tdb2Store.isSynced() && selection.isAll();
+            Model neo4jModel = null;
+            if (Boolean.TRUE.equals(useNeo4jData) && !fromTdb2) {
                 try {
-                    rdfData = rdfService.exportToTurtle();
-                    if (rdfData == null || rdfData.trim().isEmpty()) {
+                    // 增量模式只以已断言的事实作为输入，之前写回的推导由本次运行刷新或撤销
+                    neo4jModel = rdfService.loadModel(selection, incremental);
+                    if (neo4jModel.isEmpty()) {
                         return ResponseEntity.badRequest().body(
                             createErrorResponse("Neo4j 中没有数据。请先导入 RDF 数据。")
                         );
                     }
+                } catch (IllegalArgumentException e) {
+                    // 自定义 Cypher 不是只读查询
+                    return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
                 } catch (Exception e) {
                     return ResponseEntity.status(500).body(
                         createErrorResponse("从 Neo4j 读取数据失败: " + e.getMessage())
                     );
                 }
-            } else {
+            } else if (!fromTdb2) {
                 // 如果不是从 Neo4j 加载，则检查用户提供的 rdfData
                 if (rdfData == null || rdfData.trim().isEmpty()) {
                     return ResponseEntity.badRequest().body(
@@ -81,9 +186,14 @@ public class ReasoningController {
             }
             
             // 执行推理
-            Map<String, Object> result = reasoningService.performReasoningAndSave(
-                rdfData, reasonerType, customRules, saveToNeo4j
-            );
+            Map<String, Object> result = fromTdb2
+                ? tdb2Store.read(model -> model.isEmpty() ? null : runReasoning(request, reasonerType, model))
+                : runReasoning(request, reasonerType, neo4jModel);
+            if (result == null) {
+                return ResponseEntity.badRequest().body(
+                    createErrorResponse("TDB2 中没有数据。请先导入 RDF 数据。")
+                );
+            }
             
             return ResponseEntity.ok(result);
             
@@ -94,32 +204,165 @@ public class ReasoningController {
         }
     }
     
+    /**
+     * 提交异步推理任务（请求体同 /execute，可选 timeoutSeconds）
+     * 返回 202 和任务 ID；队列已满返回 429，估算内存超出预算返回 413
+     */
+    @PostMapping(value = "/jobs", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> submitJob(@RequestBody Map<String, Object> request) {
+        String rdfData = (String) request.get("rdfData");
+        String reasonerTypeStr = (String) request.get("reasonerType");
+        boolean useNeo4jData = Boolean.TRUE.equals(request.get("useNeo4jData"));
+        
+        if (!useNeo4jData && (rdfData == null || rdfData.trim().isEmpty())) {
+            return ResponseEntity.badRequest().body(createErrorResponse("RDF data is required"));
+        }
+        ReasonerType reasonerType;
+        try {
+            reasonerType = ReasonerType.valueOf(String.valueOf(reasonerTypeStr).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse("Invalid reasoner type: " + reasonerTypeStr));
+        }
+        
+        try {
+            // Neo4j 数据按节点数估算输入大小
+            long inputBytes = useNeo4jData ? rdfService.countResources() * NEO4J_BYTES_PER_NODE : rdfData.length();
+            Object timeout = request.get("timeoutSeconds");
+            GraphSelection selection = graphSelection(request);
+            ReasoningJob job = reasoningJobService.submit(j -> {
+                if (useNeo4jData && tdb2Store.isSynced() && selection.isAll()) {
+                    j.setPhase("reasoning");
+                    return tdb2Store.read(model -> runReasoning(request, reasonerType, model));
+                }
+                Model neo4jModel = null;
+                if (useNeo4jData) {
+                    j.setPhase("loading");
+                    boolean incremental = Boolean.TRUE.equals(request.get("saveToNeo4j"))
+                        && "incremental".equalsIgnoreCase((String) request.get("writeMode"));
+                    neo4jModel = rdfService.loadModel(selection, incremental);
+                }
+                j.setPhase("reasoning");
+                return runReasoning(request, reasonerType, neo4jModel);
+            }, reasoningJobService.estimateBytes(inputBytes, reasonerType), timeout instanceof Number ? ((Number) timeout).longValue() : null);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatusMap());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(createErrorResponse(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(createErrorResponse("提交推理任务失败: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * 获取推理任务状态
+     */
+    @GetMapping(value = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        ReasoningJob job = reasoningJobService.get(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Unknown job: " + id));
+        }
+        return ResponseEntity.ok(job.toStatusMap());
+    }
+    
+    /**
+     * 获取推理任务结果：未完成返回 202 和状态，失败/取消/超时返回 409
+     */
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getJobResult(@PathVariable String id) {
+        ReasoningJob job = reasoningJobService.get(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Unknown job: " + id));
+        }
+        if (!job.isDone()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toStatusMap());
+        }
+        if (job.getStatus() != ReasoningJob.Status.SUCCEEDED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(job.toStatusMap());
+        }
+        return ResponseEntity.ok(job.getResult());
+    }
+    
+    /**
+     * 取消推理任务
+     */
+    @DeleteMapping(value = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        ReasoningJob job = reasoningJobService.get(id);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse("Unknown job: " + id));
+        }
+        reasoningJobService.cancel(id);
+        return ResponseEntity.ok(job.toStatusMap());
+    }
+    
+    /**
+     * 推理任务线程池统计
+     */
+    @GetMapping(value = "/jobs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getJobStats() {
+        return ResponseEntity.ok(reasoningJobService.getStats());
+    }
+    
     /**
      * 仅获取推理产生的新三元组
+     * 结果格式取自 resultFormat 字段或 Accept 头（默认 Turtle，可选 RDF Thrift / Protobuf 二进制格式），按 Accept-Encoding 压缩
      */
-    @PostMapping(value = "/inferred-only", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "text/turtle")
-    public ResponseEntity<String> getInferredTriplesOnly(@RequestBody Map<String, Object> request) {
+    @PostMapping(value = "/inferred-only", consumes = MediaType.APPLICATION_JSON_VALUE, produces = {"text/turtle", "application/n-triples", "application/ld+json", "application/rdf+xml", "application/rdf+thrift", "application/rdf+protobuf"})
+    public ResponseEntity<?> getInferredTriplesOnly(@RequestBody Map<String, Object> request,
+                                                    @RequestHeader(value = "Accept", required = false) String accept,
+                                                    @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
         try {
             String rdfData = (String) request.get("rdfData");
             String reasonerTypeStr = (String) request.get("reasonerType");
             String customRules = (String) request.getOrDefault("customRules", "");
+            String ontology = (String) request.get("ontology");
+            String format = (String) request.get("resultFormat");
             
             if (rdfData == null || reasonerTypeStr == null) {
                 return ResponseEntity.badRequest().body("RDF data and reasoner type are required");
             }
             
             ReasonerType reasonerType = ReasonerType.valueOf(reasonerTypeStr.toUpperCase());
-            String result = reasoningService.getInferredTriplesOnly(rdfData, reasonerType, customRules);
+            Lang lang = reasoningService.resolveOutputLang(format != null ? format : firstMediaType(accept));
+            Model result = reasoningService.inferNewTriples(rdfData, reasonerType, customRules, ontology);
             
-            return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("text/turtle"))
-                .body(result);
+            return ContentCoding.body(ResponseEntity.ok().contentType(MediaType.valueOf(lang.getHeaderString())),
+                reasoningService.serializeBytes(result, lang), acceptEncoding);
                 
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
         }
     }
     
+    /**
+     * 注册命名本体（TBox），之后推理请求可通过 ontology 字段引用并只提交实例数据
+     */
+    @PostMapping(value = "/ontologies/{name}", consumes = {"text/turtle", "application/rdf+xml", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_XML_VALUE}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> registerOntology(@PathVariable String name, @RequestBody String rdfData) {
+        try {
+            long triples = reasoningService.registerOntology(name, rdfData);
+            Map<String, Object> result = new HashMap<>();
+            result.put("success", true);
+            result.put("ontology", name);
+            result.put("triples", triples);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(
+                createErrorResponse("注册本体失败: " + e.getMessage())
+            );
+        }
+    }
+    
+    /**
+     * 获取已注册的本体
+     */
+    @GetMapping(value = "/ontologies", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Long>> listOntologies() {
+        return ResponseEntity.ok(reasoningService.listOntologies());
+    }
+    
     /**
      * 验证推理规则
      */
@@ -166,6 +409,31 @@ public class ReasoningController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 获取推理器缓存统计
+     */
+    @GetMapping(value = "/cache-stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(reasonerCache.getStats());
+    }
+    
+    /**
+     * 获取推理结果缓存统计
+     */
+    @GetMapping(value = "/result-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> getResultCacheStats() {
+        return ResponseEntity.ok(resultCache.getStats());
+    }
+    
+    /**
+     * 清空推理结果缓存（内存层和磁盘层）
+     */
+    @DeleteMapping(value = "/result-cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> clearResultCache() {
+        resultCache.clear();
+        return ResponseEntity.ok(resultCache.getStats());
+    }
+    
     /**
      * 加载CRM过户流程推理规则
      */
@@ -201,6 +469,113 @@ public class ReasoningController {
         }
     }
     
+    /**
+     * 批量推理过户流程
+     * 请求体为 NDJSON（每行 {"id": ..., "rdfData": ...}）或 TriG / N-Quads（每个命名图一个流程），
+     * 各流程并行推理，完成一个即输出一行 NDJSON 结果，最后一行为 {"summary": ...}
+     * 
+     * @param includeData 是否在每个结果中附带推理后的 Turtle 数据（默认否）
+     */
+    @PostMapping(value = "/infer-transfer-process/batch",
+        consumes = {TransferBatchService.NDJSON, "application/jsonl", MediaType.APPLICATION_JSON_VALUE, "application/trig", "application/n-quads"},
+        produces = TransferBatchService.NDJSON)
+    public ResponseEntity<?> inferTransferProcessBatch(HttpServletRequest request,
+            @RequestParam(value = "includeData", defaultValue = "false") boolean includeData) throws IOException {
+        String contentType = request.getContentType();
+        // 在开始流式输出（200）之前拒绝，与单个流程的接口一样返回 415
+        if (!TransferBatchService.isSupported(contentType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).contentType(MediaType.APPLICATION_JSON)
+                .body(createErrorResponse(TransferBatchService.unsupportedMessage(contentType)));
+        }
+        InputStream in = request.getInputStream();
+        StreamingResponseBody body = out -> {
+            Consumer<Map<String, Object>> writeLine = line -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(line));
+                    out.write('\n');
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            try {
+                Map<String, Object> summary = transferBatchService.inferBatch(in, contentType, includeData, writeLine);
+                writeLine.accept(Collections.singletonMap("summary", summary));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (UncheckedIOException e) {
+                // 客户端已断开
+                throw e.getCause();
+            } catch (Exception e) {
+                writeLine.accept(createErrorResponse("批量推理失败: " + e.getMessage()));
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(TransferBatchService.NDJSON)).body(body);
+    }
+    
+    // 辅助方法：按请求执行推理（neo4jModel 非空时以其为输入，否则解析 rdfData）
+    private Map<String, Object> runReasoning(Map<String, Object> request, ReasonerType reasonerType, Model neo4jModel) {
+        String rdfData = (String) request.get("rdfData");
+        String customRules = (String) request.getOrDefault("customRules", "");
+        boolean saveToNeo4j = Boolean.TRUE.equals(request.get("saveToNeo4j"));
+        String ontology = (String) request.get("ontology");
+        String scope = (String) request.get("scope");
+        Lang resultLang = reasoningService.resolveOutputLang((String) request.get("resultFormat"));
+        boolean incremental = saveToNeo4j && "incremental".equalsIgnoreCase((String) request.get("writeMode"));
+        boolean partitioned = Boolean.TRUE.equals(request.get("partitioned"));
+        String partitionKey = (String) request.get("partitionKey");
+        RuleEngineConfig engine = engineConfig(request);
+        
+        if (partitioned && !incremental) {
+            return neo4jModel != null
+                ? reasoningService.performPartitionedReasoning(neo4jModel, reasonerType, customRules, saveToNeo4j, ontology, resultLang, engine, partitionKey)
+                : reasoningService.performPartitionedReasoning(rdfData, reasonerType, customRules, saveToNeo4j, ontology, resultLang, engine, partitionKey);
+        }
+        if (neo4jModel != null) {
+            return incremental
+                ? reasoningService.performIncrementalReasoning(neo4jModel, reasonerType, customRules, ontology, scope, engine)
+                : reasoningService.performReasoningAndSave(neo4jModel, reasonerType, customRules, saveToNeo4j, ontology, resultLang, engine);
+        }
+        return incremental
+            ? reasoningService.performIncrementalReasoning(rdfData, reasonerType, customRules, ontology, scope, engine)
+            : reasoningService.performReasoningAndSave(rdfData, reasonerType, customRules, saveToNeo4j, ontology, resultLang, engine);
+    }
+    
+    // 辅助方法：从请求的 engine 对象解析 CUSTOM 规则引擎配置（缺省为 AUTO）
+    @SuppressWarnings("unchecked")
+    private RuleEngineConfig engineConfig(Map<String, Object> request) {
+        Object engine = request.get("engine");
+        return engine instanceof Map ? RuleEngineConfig.fromMap((Map<String, Object>) engine) : RuleEngineConfig.auto();
+    }
+    
+    // 辅助方法：从请求中解析要加载的 Neo4j 子图（默认整个图）
+    private GraphSelection graphSelection(Map<String, Object> request) {
+        String cypher = (String) request.get("neo4jCypher");
+        String rootIri = (String) request.get("neo4jRootIri");
+        String label = (String) request.get("neo4jLabel");
+        if (cypher != null && !cypher.trim().isEmpty()) {
+            return GraphSelection.byCypher(cypher);
+        }
+        if (rootIri != null && !rootIri.trim().isEmpty()) {
+            Object depth = request.get("neo4jDepth");
+            return GraphSelection.neighbourhood(rootIri, depth instanceof Number ? ((Number) depth).intValue() : 2);
+        }
+        if (label != null && !label.trim().isEmpty()) {
+            return GraphSelection.byLabel(label);
+        }
+        return GraphSelection.all();
+    }
+    
+    // 辅助方法：取 Accept 头中的第一个具体媒体类型
+    private String firstMediaType(String accept) {
+        if (accept == null) return null;
+        for (String part : accept.split(",")) {
+            String type = part.split(";")[0].trim();
+            if (!type.isEmpty() && !type.contains("*")) return type;
+        }
+        return null;
+    }
+    
     // 辅助方法：创建错误响应
     private Map<String, Object> createErrorResponse(String message) {
         Map<String, Object> error = new HashMap<>();
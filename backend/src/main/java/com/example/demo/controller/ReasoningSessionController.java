@@ -0,0 +1,234 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ReasoningSession;
+import com.example.demo.service.ReasoningSessionService;
+import com.example.demo.service.TransferBatchService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RiotException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 持续推理会话控制器
+ * 创建常驻的前向 RETE 推理会话，提交增删三元组（单次 JSON 或 NDJSON 流），
+ * 通过 SSE 订阅新推导出（derived）和被撤销（retracted）的事实，如 hasProcessStep、violatesRule
+ */
+@RestController
+@RequestMapping("/api/reasoning/sessions")
+@CrossOrigin(origins = "*")
+public class ReasoningSessionController {
+
+    @Autowired
+    private ReasoningSessionService sessionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** SSE 连接超时（毫秒），到期后连接结束，EventSource 客户端会自动重连；0 表示不超时 */
+    @Value("${reasoning.sessions.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    /**
+     * 创建会话
+     *
+     * @param request 可选 rules（前向规则，默认过户流程规则）、rdfData（初始数据）、format（默认 Turtle）
+     * @return 201 和会话状态（含初始数据推导出的事实数）
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> create(@RequestBody(required = false) Map<String, Object> request) {
+        Map<String, Object> body = request != null ? request : Collections.emptyMap();
+        try {
+            ReasoningSession session = sessionService.create((String) body.get("rules"), (String) body.get("rdfData"), (String) body.get("format"));
+            return ResponseEntity.status(HttpStatus.CREATED).body(session.getStatus());
+        } catch (IllegalArgumentException | RiotException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(createErrorResponse("创建推理会话失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 所有会话的状态
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> list() {
+        return ResponseEntity.ok(sessionService.getStats());
+    }
+
+    /**
+     * 会话状态
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> get(@PathVariable String id) {
+        ReasoningSession session = sessionService.get(id);
+        if (session == null) {
+            return notFound(id);
+        }
+        return ResponseEntity.ok(session.getStatus());
+    }
+
+    /**
+     * 当前的断言和推导结果（Turtle）
+     */
+    @GetMapping(value = "/{id}/data", produces = "text/turtle")
+    public ResponseEntity<?> data(@PathVariable String id) {
+        ReasoningSession session = sessionService.get(id);
+        if (session == null) {
+            return notFound(id);
+        }
+        StreamingResponseBody body = out -> RDFDataMgr.write(out, session.snapshot(), Lang.TURTLE);
+        return ResponseEntity.ok().contentType(MediaType.valueOf("text/turtle")).body(body);
+    }
+
+    /**
+     * 关闭会话，订阅者的 SSE 连接随之结束
+     */
+    @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> close(@PathVariable String id) {
+        if (!sessionService.close(id)) {
+            return notFound(id);
+        }
+        return ResponseEntity.ok(Collections.singletonMap("closed", id));
+    }
+
+    /**
+     * 提交一次变更
+     *
+     * @param request add / remove：要新增 / 删除的三元组（Turtle 或 N-Triples 文本），format 可选
+     * @return 本次变更新推导出和被撤销的事实
+     */
+    @PostMapping(value = "/{id}/changes", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> change(@PathVariable String id, @RequestBody Map<String, Object> request) {
+        try {
+            ReasoningSession.Delta delta = sessionService.apply(id, (String) request.get("add"), (String) request.get("remove"), (String) request.get("format"));
+            if (delta == null) {
+                return notFound(id);
+            }
+            return ResponseEntity.ok(delta.toMap());
+        } catch (IllegalArgumentException | RiotException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * 提交变更流：请求体为 NDJSON，每行一个 {"add": ..., "remove": ..., "format": ...}，按顺序应用，
+     * 每行输出一行结果（解析失败的行输出 {"line": n, "error": ...}，不影响后续行）
+     */
+    @PostMapping(value = "/{id}/changes", consumes = {TransferBatchService.NDJSON, "application/jsonl"}, produces = TransferBatchService.NDJSON)
+    public ResponseEntity<?> changeStream(@PathVariable String id, HttpServletRequest request) throws IOException {
+        if (sessionService.get(id) == null) {
+            return notFound(id);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        StreamingResponseBody body = out -> {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) continue;
+                Map<String, Object> result;
+                try {
+                    JsonNode change = objectMapper.readTree(line);
+                    ReasoningSession.Delta delta = sessionService.apply(id, text(change, "add"), text(change, "remove"), text(change, "format"));
+                    if (delta == null) {
+                        writeLine(out, createErrorResponse("Session closed: " + id));
+                        return;
+                    }
+                    result = delta.toMap();
+                } catch (IOException | IllegalArgumentException | RiotException e) {
+                    result = new LinkedHashMap<>();
+                    result.put("line", lineNumber);
+                    result.put("error", e.getMessage());
+                }
+                writeLine(out, result);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.valueOf(TransferBatchService.NDJSON)).body(body);
+    }
+
+    /**
+     * 订阅推导变化（Server-Sent Events）：每次变更发送 derived / retracted 事件，事件 id 为变更序号，
+     * 数据为三元组数组；会话关闭时连接结束
+     *
+     * @param predicates 只推送这些谓词的事实（完整 IRI 或本地名，逗号分隔），如 violatesRule
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> events(@PathVariable String id, @RequestParam(value = "predicates", required = false) String predicates) {
+        Set<String> filter = predicates == null || predicates.trim().isEmpty() ? null
+            : Arrays.stream(predicates.split(",")).map(String::trim).filter(p -> !p.isEmpty()).collect(Collectors.toSet());
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Runnable unsubscribe = sessionService.subscribe(id, delta -> {
+            try {
+                send(emitter, "derived", delta, filter(delta.getDerived(), filter));
+                send(emitter, "retracted", delta, filter(delta.getRetracted(), filter));
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                emitter.completeWithError(e);
+            }
+        }, emitter::complete);
+        if (unsubscribe == null) {
+            return notFound(id);
+        }
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    private static void send(SseEmitter emitter, String name, ReasoningSession.Delta delta, List<Triple> triples) throws IOException {
+        if (triples.isEmpty()) return;
+        List<Map<String, Object>> data = triples.stream().map(ReasoningSession::toMap).collect(Collectors.toList());
+        emitter.send(SseEmitter.event().name(name).id(String.valueOf(delta.getSequence())).data(data, MediaType.APPLICATION_JSON));
+    }
+
+    private static List<Triple> filter(List<Triple> triples, Set<String> predicates) {
+        if (predicates == null) return triples;
+        return triples.stream()
+            .filter(t -> predicates.contains(t.getPredicate().getURI()) || predicates.contains(t.getPredicate().getLocalName()))
+            .collect(Collectors.toList());
+    }
+
+    private void writeLine(OutputStream out, Map<String, Object> line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private ResponseEntity<Map<String, Object>> notFound(String id) {
+        // 显式指定类型：SSE / NDJSON / Turtle 端点的 404 同样返回 JSON
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(createErrorResponse("Unknown session: " + id));
+    }
+
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("success", false);
+        error.put("error", message);
+        return error;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.ContentCoding;
+import com.example.demo.service.SparqlService;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryParseException;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.resultset.ResultSetLang;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * SPARQL 查询控制器
+ * 在推理闭包快照上执行只读 SPARQL 查询（见 SparqlService），结果流式返回
+ */
+@RestController
+@RequestMapping("/api/sparql")
+public class SparqlController {
+
+    @Autowired
+    private SparqlService sparqlService;
+
+    /**
+     * 执行查询（GET ?query=，或 POST 表单字段 query）
+     *
+     * @param format json（默认）/ tsv / csv / xml；CONSTRUCT、DESCRIBE 为 turtle（默认）/ ntriples；缺省时按 Accept 头
+     * @param limit  最多返回的行数（CONSTRUCT/DESCRIBE 为三元组数），不超过 sparql.max-rows
+     */
+    @RequestMapping(method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<?> query(@RequestParam("query") String query,
+                                   @RequestParam(value = "format", required = false) String format,
+                                   @RequestParam(value = "limit", defaultValue = "0") int limit,
+                                   @RequestHeader(value = "Accept", required = false) String accept,
+                                   @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        return execute(query, format, limit, accept, acceptEncoding);
+    }
+
+    /**
+     * 执行查询（POST 请求体为查询文本，Content-Type: application/sparql-query）
+     */
+    @PostMapping(consumes = "application/sparql-query")
+    public ResponseEntity<?> queryBody(@RequestBody String query,
+                                       @RequestParam(value = "format", required = false) String format,
+                                       @RequestParam(value = "limit", defaultValue = "0") int limit,
+                                       @RequestHeader(value = "Accept", required = false) String accept,
+                                       @RequestHeader(value = "Accept-Encoding", required = false) String acceptEncoding) {
+        return execute(query, format, limit, accept, acceptEncoding);
+    }
+
+    /**
+     * 快照（三元组数、构建耗时、是否过期）和查询缓存状态
+     */
+    @GetMapping(value = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(sparqlService.getStatus());
+    }
+
+    /**
+     * 在后台重建快照（例如直接修改了 Neo4j 之后），返回 202
+     */
+    @PostMapping(value = "/refresh", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> refresh() {
+        sparqlService.refresh();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(sparqlService.getStatus());
+    }
+
+    private ResponseEntity<?> execute(String queryText, String format, int limit, String accept, String acceptEncoding) {
+        Query query;
+        try {
+            query = sparqlService.prepare(queryText);
+        } catch (QueryParseException e) {
+            return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+        }
+        SparqlService.Snapshot snapshot;
+        try {
+            snapshot = sparqlService.snapshot();
+        } catch (Exception e) {
+            return ResponseEntity.status(503).body(Collections.singletonMap("error", "SPARQL dataset unavailable: " + e.getMessage()));
+        }
+
+        boolean graphResult = query.isConstructType() || query.isDescribeType();
+        Lang resultLang = resultLang(format, accept);
+        Lang graphLang = graphLang(format, accept);
+        String coding = ContentCoding.negotiate(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            try (OutputStream encoded = ContentCoding.encode(out, coding)) {
+                sparqlService.execute(snapshot, query, limit, resultLang, graphLang, encoded);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.valueOf((graphResult ? graphLang : resultLang).getHeaderString()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Sparql-Snapshot-Version", String.valueOf(snapshot.getVersion()))
+                .header("X-Sparql-Stale", String.valueOf(sparqlService.isStale(snapshot)));
+        if (coding != null) {
+            response.header(HttpHeaders.CONTENT_ENCODING, coding);
+        }
+        return response.body(body);
+    }
+
+    private static Lang resultLang(String format, String accept) {
+        if (format != null) {
+            switch (format.toLowerCase()) {
+                case "tsv":
+                    return ResultSetLang.RS_TSV;
+                case "csv":
+                    return ResultSetLang.RS_CSV;
+                case "xml":
+                    return ResultSetLang.RS_XML;
+                default:
+                    return ResultSetLang.RS_JSON;
+            }
+        }
+        if (accept != null) {
+            for (String type : accept.split(",")) {
+                String mime = type.split(";")[0].trim().toLowerCase();
+                if (mime.equals("text/tab-separated-values")) return ResultSetLang.RS_TSV;
+                if (mime.equals("text/csv")) return ResultSetLang.RS_CSV;
+                if (mime.equals("application/sparql-results+xml")) return ResultSetLang.RS_XML;
+                if (mime.equals("application/sparql-results+json") || mime.equals("application/json")) return ResultSetLang.RS_JSON;
+            }
+        }
+        return ResultSetLang.RS_JSON;
+    }
+
+    private static Lang graphLang(String format, String accept) {
+        if (format != null) {
+            return "ntriples".equalsIgnoreCase(format) || "nt".equalsIgnoreCase(format) ? Lang.NTRIPLES : Lang.TURTLE;
+        }
+        if (accept != null) {
+            for (String type : accept.split(",")) {
+                String mime = type.split(";")[0].trim().toLowerCase();
+                if (mime.equals("application/n-triples")) return Lang.NTRIPLES;
+                if (mime.equals("text/turtle")) return Lang.TURTLE;
+            }
+        }
+        return Lang.TURTLE;
+    }
+}
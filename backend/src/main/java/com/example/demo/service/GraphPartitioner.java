@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.vocabulary.OWL;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+import java.util.*;
+
+/**
+ * 推理输入分区
+ * 把 ABox 按连通分量拆分成互不相连的子图（rdf:type 的类和本体中的术语不作为连接点），
+ * 可选的分区键谓词（如 crm:tenant）把具有相同键值的资源合并到同一分区；
+ * 规则体在图上连通（通过资源变量连接）时，分区推理结果与整体推理一致
+ */
+public class GraphPartitioner {
+
+    private final Set<Node> hubs;
+    private final Node partitionKey;
+
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private int[] parent = new int[1024];
+
+    /**
+     * @param schema 本体（TBox），其中出现的资源不连接分区；可为空模型
+     * @param partitionKey 分区键谓词 IRI，可为空
+     */
+    public GraphPartitioner(Model schema, String partitionKey) {
+        this.hubs = new HashSet<>();
+        schema.listStatements().forEachRemaining(s -> {
+            hubs.add(s.getSubject().asNode());
+            if (s.getObject().isURIResource()) hubs.add(s.getObject().asNode());
+        });
+        this.partitionKey = partitionKey == null || partitionKey.isEmpty() ? null : ResourceFactory.createProperty(partitionKey).asNode();
+    }
+
+    /**
+     * 是否为本体（TBox）三元组：RDFS/OWL 词汇作谓词，或声明类、属性等 RDFS/OWL 类型
+     */
+    public static boolean isSchemaStatement(Statement stmt) {
+        String predicate = stmt.getPredicate().getURI();
+        if (predicate.startsWith(RDFS.uri) || predicate.startsWith(OWL.NS)) {
+            return true;
+        }
+        if (stmt.getPredicate().equals(RDF.type) && stmt.getObject().isURIResource()) {
+            String type = stmt.getResource().getURI();
+            return type.startsWith(RDFS.uri) || type.startsWith(OWL.NS) || type.equals(RDF.Property.getURI());
+        }
+        return false;
+    }
+
+    /**
+     * 拆分为本体和实例数据两部分：[0] 为 TBox，[1] 为 ABox
+     */
+    public static Model[] splitSchema(Model data) {
+        Model schema = ModelFactory.createDefaultModel();
+        Model abox = ModelFactory.createDefaultModel();
+        data.listStatements().forEachRemaining(s -> (isSchemaStatement(s) ? schema : abox).add(s));
+        return new Model[] { schema, abox };
+    }
+
+    /**
+     * 按连通分量（及分区键）拆分实例数据，再把小分区合并成不少于 minTriples 个三元组的分区
+     *
+     * @param abox 实例数据（不含本体三元组）
+     * @param minTriples 每个分区的最小三元组数，用于摊薄每个分区创建推理模型的开销
+     */
+    public List<Model> partition(Model abox, int minTriples) {
+        // 1. 并查集：主语与作为宾语的资源连通；分区键值作为虚拟节点把同键资源连通
+        abox.listStatements().forEachRemaining(stmt -> {
+            Node s = stmt.getSubject().asNode();
+            Node o = stmt.getObject().asNode();
+            int root = id(s);
+            if (partitionKey != null && stmt.getPredicate().asNode().equals(partitionKey)) {
+                union(root, id(Collections.singletonList(o)));
+            } else if (!o.isLiteral() && !stmt.getPredicate().equals(RDF.type) && !hubs.contains(o)) {
+                union(root, id(o));
+            }
+        });
+
+        // 2. 按主语所在分量分组
+        Map<Integer, Model> components = new LinkedHashMap<>();
+        abox.listStatements().forEachRemaining(stmt -> components
+            .computeIfAbsent(find(ids.get(stmt.getSubject().asNode())), k -> ModelFactory.createDefaultModel())
+            .add(stmt));
+
+        // 3. 合并小分区
+        List<Model> partitions = new ArrayList<>();
+        Model current = null;
+        for (Model component : components.values()) {
+            if (current == null) {
+                current = ModelFactory.createDefaultModel();
+                current.setNsPrefixes(abox.getNsPrefixMap());
+            }
+            current.add(component);
+            if (current.size() >= minTriples) {
+                partitions.add(current);
+                current = null;
+            }
+        }
+        if (current != null) {
+            partitions.add(current);
+        }
+        return partitions;
+    }
+
+    private int id(Object key) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+            if (id == parent.length) {
+                parent = Arrays.copyOf(parent, parent.length * 2);
+            }
+            parent[id] = id;
+        }
+        return id;
+    }
+
+    private int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private void union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra != rb) {
+            parent[Math.max(ra, rb)] = Math.min(ra, rb);
+        }
+    }
+}
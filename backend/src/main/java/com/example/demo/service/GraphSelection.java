@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Which :Resource nodes an export/load should cover: the whole graph, nodes with a label,
+// the neighbourhood of one iri up to a depth, or the `n` nodes returned by a Cypher query.
+// Custom Cypher must be read-only; RdfService checks that with EXPLAIN, runs it once inside a
+// read-only transaction to collect the selected iris, and then pages over that list.
+public class GraphSelection {
+    public static final int MAX_DEPTH = 10;
+
+    private final String label;
+    private final String rootIri;
+    private final int depth;
+    private final String cypher;
+
+    private GraphSelection(String label, String rootIri, int depth, String cypher) {
+        this.label = label;
+        this.rootIri = rootIri;
+        this.depth = Math.max(0, Math.min(MAX_DEPTH, depth));
+        this.cypher = cypher;
+    }
+
+    public static GraphSelection all() {
+        return new GraphSelection(null, null, 0, null);
+    }
+
+    public static GraphSelection byLabel(String label) {
+        return new GraphSelection(label.replaceAll("[^A-Za-z0-9_]", "_"), null, 0, null);
+    }
+
+    public static GraphSelection neighbourhood(String rootIri, int depth) {
+        return new GraphSelection(null, rootIri, depth, null);
+    }
+
+    // `cypher` must return the selected nodes as `n`, e.g. MATCH (n:Customer {customerId: '42'}) RETURN n
+    public static GraphSelection byCypher(String cypher) {
+        return new GraphSelection(null, null, 0, cypher);
+    }
+
+    public boolean isAll() {
+        return label == null && rootIri == null && cypher == null;
+    }
+
+    public boolean isCustomCypher() {
+        return cypher != null;
+    }
+
+    String getCypher() {
+        return cypher;
+    }
+
+    // Distinct iris of the :Resource nodes a custom Cypher selection returns
+    String selectQuery(String resourceLabel) {
+        return "CALL { " + cypher + " } WITH n WHERE n:`" + resourceLabel + "` RETURN DISTINCT n.iri AS iri";
+    }
+
+    // Leading clauses binding `n` (a :Resource node after the $after keyset cursor); custom
+    // Cypher selections are paged over their collected iris instead
+    String matchClause(String resourceLabel) {
+        String resource = "`" + resourceLabel + "`";
+        if (cypher != null) {
+            throw new IllegalStateException("Custom Cypher selections are paged over their collected iris");
+        }
+        if (rootIri != null) {
+            return "MATCH (:" + resource + " {iri: $root})-[*0.." + depth + "]-(n:" + resource + ") "
+                    + "WITH DISTINCT n WHERE n.iri > $after ";
+        }
+        if (label != null) {
+            return "MATCH (n:" + resource + ":`" + label + "`) WHERE n.iri > $after ";
+        }
+        return "MATCH (n:" + resource + ") WHERE n.iri > $after ";
+    }
+
+    Map<String, Object> parameters() {
+        Map<String, Object> params = new HashMap<>();
+        if (rootIri != null) params.put("root", rootIri);
+        return params;
+    }
+
+    @Override
+    public String toString() {
+        if (cypher != null) return "cypher";
+        if (rootIri != null) return "neighbourhood(" + rootIri + ", " + depth + ")";
+        if (label != null) return "label(" + label + ")";
+        return "all";
+    }
+}
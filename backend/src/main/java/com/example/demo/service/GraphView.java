@@ -0,0 +1,114 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// One page of the visualisation graph: which nodes (all :Resource nodes, or the neighbourhood of
+// `root` up to `depth` hops), label and relationship-type filters, the projected properties and
+// the supernode threshold. Labels, types and property keys are kept as given (relationship types and
+// property keys are stored unsanitised): filters go in as parameters, and where a value has to be
+// spliced into Cypher as an identifier it is backtick-quoted with embedded backticks doubled.
+// The cursor is the last iri of the previous page, base64url-encoded.
+public class GraphView {
+    public static final int MAX_LIMIT = 5000;
+    public static final int MAX_SAMPLE = 50;
+
+    private final String after;
+    private final int limit;
+    private final String root;
+    private final int depth;
+    private final List<String> labels;
+    private final List<String> types;
+    private final List<String> properties;
+    private final boolean allProperties;
+    private final int maxDegree;
+    private final int sample;
+
+    public GraphView(String cursor, int limit, String root, int depth, Collection<String> labels,
+                     Collection<String> types, Collection<String> properties, int maxDegree, int sample) {
+        this.after = decodeCursor(cursor);
+        this.limit = Math.max(1, Math.min(MAX_LIMIT, limit));
+        this.root = root == null || root.isEmpty() ? null : root;
+        this.depth = Math.max(0, Math.min(GraphSelection.MAX_DEPTH, depth));
+        this.labels = identifiers(labels);
+        this.types = identifiers(types);
+        this.allProperties = properties != null && properties.contains("*");
+        this.properties = allProperties ? Collections.emptyList() : identifiers(properties);
+        this.maxDegree = Math.max(1, maxDegree);
+        this.sample = Math.max(0, Math.min(MAX_SAMPLE, sample));
+    }
+
+    public static String encodeCursor(String iri) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(iri.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return "";
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static List<String> identifiers(Collection<String> values) {
+        if (values == null) return Collections.emptyList();
+        return values.stream()
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    // A label, relationship type or property key as a quoted Cypher identifier
+    static String quote(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    // Leading clauses binding the page's nodes `n`, ordered by iri after the cursor
+    String matchClause(String resourceLabel) {
+        String resource = quote(resourceLabel);
+        String match = root != null
+                ? "MATCH (:" + resource + " {iri: $root})-[" + typePattern() + "*0.." + depth + "]-(n:" + resource + ") "
+                        + "WITH DISTINCT n WHERE n.iri > $after "
+                : "MATCH (n:" + resource + ") WHERE n.iri > $after ";
+        if (!labels.isEmpty()) {
+            match += "AND any(l IN labels(n) WHERE l IN $labels) ";
+        }
+        return match + "WITH n ORDER BY n.iri LIMIT $limit ";
+    }
+
+    // Property projection for `n`: a map of the requested keys, all properties, or none
+    String projection() {
+        if (allProperties) return "properties(n)";
+        if (properties.isEmpty()) return "{}";
+        return properties.stream().map(p -> quote(p) + ": n." + quote(p)).collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    // `WHERE` condition restricting relationship `r` to the type filter (empty without one)
+    String typeCondition(String r) {
+        return types.isEmpty() ? "" : "WHERE type(" + r + ") IN $types ";
+    }
+
+    private String typePattern() {
+        return types.isEmpty() ? "" : types.stream().map(GraphView::quote).collect(Collectors.joining("|", ":", ""));
+    }
+
+    Map<String, Object> parameters() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("after", after);
+        params.put("limit", limit);
+        params.put("labels", labels);
+        params.put("types", types);
+        params.put("sample", sample);
+        if (root != null) params.put("root", root);
+        return params;
+    }
+
+    public int getLimit() { return limit; }
+    public int getMaxDegree() { return maxDegree; }
+    public int getSample() { return sample; }
+    public List<String> getProperties() { return properties; }
+    public boolean isAllProperties() { return allProperties; }
+}
@@ -0,0 +1,173 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Paged graph data for the visualisation, in a columnar encoding (Cypher needs Neo4j 5 for COUNT {}):
+//   iris           the page's node iris, followed by iris of nodes outside the page that
+//                  relationships or samples refer to; every reference below indexes this list
+//   nodes          column per attribute (labels as indexes into `labels`, out/in degree, one
+//                  column per projected property), row i describes iris[i]
+//   relationships  source / target / type columns for the outgoing relationships of the page's
+//                  nodes, so that paging through the graph yields every relationship exactly once
+//   supernodes     nodes with more than `maxDegree` outgoing relationships are collapsed: one
+//                  row per (node, type) with the count and a sample of targets instead of the edges
+//   nextCursor     pass back as `cursor` for the next page; null on the last page
+@Service
+public class GraphViewService {
+    private static final String RESOURCE = GraphView.quote(RdfService.RESOURCE_LABEL);
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    public Map<String, Object> getPage(GraphView view) {
+        Map<String, Object> params = view.parameters();
+
+        // 1. the page's nodes with degrees (from the degree store, no expansion)
+        String nodeQuery = view.matchClause(RdfService.RESOURCE_LABEL)
+                + "RETURN n.iri AS iri, labels(n) AS labels, " + view.projection() + " AS props, "
+                + "COUNT { (n)-[r]->() " + view.typeCondition("r") + "} AS outDegree, "
+                + "COUNT { (n)<-[r]-() " + view.typeCondition("r") + "} AS inDegree";
+        List<Map<String, Object>> rows = new ArrayList<>(neo4jClient.query(nodeQuery).bindAll(params).fetch().all());
+
+        Columns columns = new Columns();
+        List<String> regular = new ArrayList<>();
+        List<String> supernodes = new ArrayList<>();
+        Map<String, List<Object>> props = new LinkedHashMap<>();
+        for (String key : view.getProperties()) {
+            props.put(key, new ArrayList<>(rows.size()));
+        }
+        List<List<Integer>> labelColumn = new ArrayList<>(rows.size());
+        List<Long> outDegree = new ArrayList<>(rows.size());
+        List<Long> inDegree = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            String iri = row.get("iri").toString();
+            columns.ref(iri);
+            List<Integer> labels = new ArrayList<>();
+            for (Object label : (Collection<?>) row.get("labels")) {
+                if (!RdfService.RESOURCE_LABEL.equals(label)) labels.add(columns.label(label.toString()));
+            }
+            labelColumn.add(labels);
+            long out = ((Number) row.get("outDegree")).longValue();
+            outDegree.add(out);
+            inDegree.add(((Number) row.get("inDegree")).longValue());
+            (out > view.getMaxDegree() ? supernodes : regular).add(iri);
+
+            Map<?, ?> values = row.get("props") instanceof Map ? (Map<?, ?>) row.get("props") : Collections.emptyMap();
+            if (view.isAllProperties()) {
+                for (Map.Entry<?, ?> e : values.entrySet()) {
+                    String key = e.getKey().toString();
+                    if (key.equals("iri") || key.endsWith(InferenceWriter.PROV_SUFFIX) || key.endsWith(LiteralCodec.DATATYPE_SUFFIX)) continue;
+                    // columns are created on first use; rows without the key hold null
+                    List<Object> column = props.computeIfAbsent(key, k -> new ArrayList<>());
+                    while (column.size() < i) column.add(null);
+                    column.add(e.getValue());
+                }
+            } else {
+                for (String key : view.getProperties()) {
+                    props.get(key).add(values.get(key));
+                }
+            }
+        }
+        props.values().forEach(column -> {
+            while (column.size() < rows.size()) column.add(null);
+        });
+
+        // 2. outgoing relationships of regular nodes
+        Map<String, Object> relationships = new LinkedHashMap<>();
+        List<Integer> source = new ArrayList<>();
+        List<Integer> target = new ArrayList<>();
+        List<Integer> type = new ArrayList<>();
+        if (!regular.isEmpty()) {
+            Map<String, Object> relParams = new HashMap<>(params);
+            relParams.put("iris", regular);
+            Collection<Map<String, Object>> rels = neo4jClient.query(
+                    "UNWIND $iris AS iri MATCH (n:" + RESOURCE + " {iri: iri})-[r]->(m:" + RESOURCE + ") " + view.typeCondition("r")
+                            + "RETURN n.iri AS source, type(r) AS type, m.iri AS target")
+                    .bindAll(relParams).fetch().all();
+            for (Map<String, Object> rel : rels) {
+                source.add(columns.ref(rel.get("source").toString()));
+                target.add(columns.ref(rel.get("target").toString()));
+                type.add(columns.type(rel.get("type").toString()));
+            }
+        }
+        relationships.put("source", source);
+        relationships.put("target", target);
+        relationships.put("type", type);
+
+        // 3. supernodes: count per type and a bounded sample of targets
+        Map<String, Object> collapsed = new LinkedHashMap<>();
+        List<Integer> node = new ArrayList<>();
+        List<Integer> collapsedType = new ArrayList<>();
+        List<Long> count = new ArrayList<>();
+        List<List<Integer>> samples = new ArrayList<>();
+        if (!supernodes.isEmpty()) {
+            Map<String, Object> hubParams = new HashMap<>(params);
+            hubParams.put("iris", supernodes);
+            Collection<Map<String, Object>> groups = neo4jClient.query(
+                    "UNWIND $iris AS iri MATCH (n:" + RESOURCE + " {iri: iri})-[r]->(:" + RESOURCE + ") " + view.typeCondition("r")
+                            + "WITH n, type(r) AS type, count(*) AS count "
+                            + "CALL { WITH n, type MATCH (n)-[s]->(m:" + RESOURCE + ") WHERE type(s) = type "
+                            + "WITH m LIMIT $sample RETURN collect(m.iri) AS sample } "
+                            + "RETURN n.iri AS iri, type, count, sample ORDER BY iri, type")
+                    .bindAll(hubParams).fetch().all();
+            for (Map<String, Object> group : groups) {
+                node.add(columns.ref(group.get("iri").toString()));
+                collapsedType.add(columns.type(group.get("type").toString()));
+                count.add(((Number) group.get("count")).longValue());
+                List<Integer> refs = new ArrayList<>();
+                for (Object iri : (Collection<?>) group.get("sample")) {
+                    refs.add(columns.ref(iri.toString()));
+                }
+                samples.add(refs);
+            }
+        }
+        collapsed.put("node", node);
+        collapsed.put("type", collapsedType);
+        collapsed.put("count", count);
+        collapsed.put("sample", samples);
+
+        Map<String, Object> nodes = new LinkedHashMap<>();
+        nodes.put("count", rows.size());
+        nodes.put("labels", labelColumn);
+        nodes.put("outDegree", outDegree);
+        nodes.put("inDegree", inDegree);
+        nodes.put("properties", props);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("encoding", "columnar-v1");
+        result.put("iris", columns.iris);
+        result.put("labels", columns.labels);
+        result.put("types", columns.types);
+        result.put("nodes", nodes);
+        result.put("relationships", relationships);
+        result.put("supernodes", collapsed);
+        result.put("nextCursor", rows.size() < view.getLimit() ? null : GraphView.encodeCursor(rows.get(rows.size() - 1).get("iri").toString()));
+        return result;
+    }
+
+    // Dictionaries of the page: iris (page nodes first), labels and relationship types
+    private static final class Columns {
+        final List<String> iris = new ArrayList<>();
+        final List<String> labels = new ArrayList<>();
+        final List<String> types = new ArrayList<>();
+        private final Map<String, Integer> irisIndex = new HashMap<>();
+        private final Map<String, Integer> labelsIndex = new HashMap<>();
+        private final Map<String, Integer> typesIndex = new HashMap<>();
+
+        int ref(String iri) { return index(iri, iris, irisIndex); }
+        int label(String label) { return index(label, labels, labelsIndex); }
+        int type(String type) { return index(type, types, typesIndex); }
+
+        private static int index(String value, List<String> values, Map<String, Integer> index) {
+            return index.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+}
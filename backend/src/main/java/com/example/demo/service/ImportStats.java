@@ -0,0 +1,65 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Counters and per-phase timings (ms) collected during one RDF import.
+public class ImportStats {
+    private long triples;
+    private long nodes;
+    private long labels;
+    private long properties;
+    private long relationships;
+    private long queries;
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+
+    public void addTriples(long n) { triples += n; }
+    public void addNodes(long n) { nodes += n; }
+    public void addLabels(long n) { labels += n; }
+    public void addProperties(long n) { properties += n; }
+    public void addRelationships(long n) { relationships += n; }
+    public void addQueries(long n) { queries += n; }
+
+    public void addPhaseTime(String phase, long millis) {
+        phaseMillis.merge(phase, millis, Long::sum);
+    }
+
+    // Add the counters and phase times of another import (e.g. one segment of a parallel import);
+    // phase times of concurrent segments add up to more than the elapsed time
+    public void merge(ImportStats other) {
+        triples += other.triples;
+        nodes += other.nodes;
+        labels += other.labels;
+        properties += other.properties;
+        relationships += other.relationships;
+        queries += other.queries;
+        other.phaseMillis.forEach(this::addPhaseTime);
+    }
+
+    public long getTriples() { return triples; }
+    public long getNodes() { return nodes; }
+    public long getLabels() { return labels; }
+    public long getProperties() { return properties; }
+    public long getRelationships() { return relationships; }
+    public long getQueries() { return queries; }
+    public Map<String, Long> getPhaseMillis() { return phaseMillis; }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("triples", triples);
+        m.put("nodes", nodes);
+        m.put("labels", labels);
+        m.put("properties", properties);
+        m.put("relationships", relationships);
+        m.put("queries", queries);
+        m.put("phaseMillis", phaseMillis);
+        return m;
+    }
+
+    @Override
+    public String toString() {
+        return "triples=" + triples + ", nodes=" + nodes + ", labels=" + labels
+                + ", properties=" + properties + ", relationships=" + relationships
+                + ", queries=" + queries + ", phaseMillis=" + phaseMillis;
+    }
+}
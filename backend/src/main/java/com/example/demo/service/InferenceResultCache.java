@@ -0,0 +1,462 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.out.NodeFmtLib;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 推理结果缓存
+ * 以 (推理变体：操作、推理器类型、规则哈希、引擎配置、本体、输出格式) + 输入图的规范哈希 为键缓存推理结果，
+ * 按条目数、估算字节数和 TTL 限制内存占用，可选 gzip 压缩的磁盘层（重启后仍可命中）
+ * 相同请求文本先经文本哈希别名直接命中，无需再解析；文本不同但图相同（三元组顺序、空白、前缀写法不同）
+ * 时解析后按规范哈希命中
+ */
+@Component
+public class InferenceResultCache {
+
+    @Value("${reasoning.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reasoning.result-cache.max-entries:256}")
+    private int maxEntries;
+
+    /** 内存层所有结果的估算字节数上限 */
+    @Value("${reasoning.result-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${reasoning.result-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${reasoning.result-cache.disk.enabled:false}")
+    private boolean diskEnabled;
+
+    @Value("${reasoning.result-cache.disk.directory:${java.io.tmpdir}/reasoning-result-cache}")
+    private String diskDirectory;
+
+    @Value("${reasoning.result-cache.disk.max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReasoningMetrics metrics;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** 内存层当前估算字节数；只在 synchronized (entries) 内修改 */
+    private long bytes;
+
+    /** access-order LinkedHashMap 实现 LRU；所有访问都在 synchronized (entries) 内 */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 请求文本哈希 -> 结果键，相同文本的重复请求跳过解析；与 entries 共用锁 */
+    private final LinkedHashMap<String, String> aliases = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > Math.max(1, maxEntries) * 4;
+        }
+    };
+
+    private Path directory;
+    private ExecutorService diskWriter;
+
+    private static final class Entry {
+        final Map<String, Object> result;
+        final long bytes;
+        final long created;
+
+        Entry(Map<String, Object> result, long bytes, long created) {
+            this.result = result;
+            this.bytes = bytes;
+            this.created = created;
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (enabled && diskEnabled) {
+            directory = Files.createDirectories(Paths.get(diskDirectory));
+            diskWriter = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "result-cache-disk");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (diskWriter != null) {
+            diskWriter.shutdown();
+            diskWriter.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 查找缓存结果，未命中时解析并推理，成功的结果写入缓存
+     *
+     * @param variant 推理变体：同一输入在不同变体下结果不同（推理器类型、规则、引擎、本体、输出格式等）
+     * @param rdfData 请求中的 RDF 文本
+     * @param parser 解析 rdfData
+     * @param reasoning 对解析后的模型推理，返回结果（调用方只能修改返回的副本）
+     * @return 结果副本，resultCache 字段为 hit 或 miss
+     */
+    public Map<String, Object> compute(String variant, String rdfData, Function<String, Model> parser,
+                                       Function<Model, Map<String, Object>> reasoning) {
+        if (!enabled) {
+            return reasoning.apply(parser.apply(rdfData));
+        }
+        // 1. 相同请求文本：不解析
+        String textKey = variant + "|text:" + ReasonerCache.sha256(rdfData);
+        String key;
+        synchronized (entries) {
+            key = aliases.get(textKey);
+        }
+        Map<String, Object> cached = key == null ? null : lookup(key);
+        if (cached != null) {
+            return hit(cached);
+        }
+
+        // 2. 相同的图（规范哈希）
+        Model model = parser.apply(rdfData);
+        String graphHash = canonicalHash(model);
+        if (graphHash == null) {
+            // 空白节点无法规范标记，不缓存
+            uncacheable.incrementAndGet();
+            return reasoning.apply(model);
+        }
+        key = variant + "|graph:" + graphHash;
+        cached = lookup(key);
+        boolean hit = cached != null;
+        if (hit) {
+            hits.incrementAndGet();
+            metrics.recordResultCache("hit");
+        } else {
+            misses.incrementAndGet();
+            metrics.recordResultCache("miss");
+            Map<String, Object> result = reasoning.apply(model);
+            if (!Boolean.TRUE.equals(result.get("success"))) {
+                return result;
+            }
+            store(key, result);
+            cached = result;
+        }
+        synchronized (entries) {
+            aliases.put(textKey, key);
+        }
+        Map<String, Object> copy = new HashMap<>(cached);
+        copy.put("resultCache", hit ? "hit" : "miss");
+        return copy;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            aliases.clear();
+            bytes = 0;
+        }
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(f -> f.toFile().delete());
+            } catch (IOException e) {
+                // 磁盘层尽力而为
+            }
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            stats.put("estimatedBytes", bytes);
+            stats.put("aliases", aliases.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("maxBytes", maxBytes);
+        stats.put("ttlMinutes", ttlMinutes);
+        stats.put("hits", hits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("uncacheable", uncacheable.get());
+        stats.put("evictions", evictions.get());
+        long total = hits.get() + misses.get();
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits.get() / total);
+        stats.put("diskEnabled", directory != null);
+        if (directory != null) {
+            stats.put("diskDirectory", directory.toString());
+            stats.put("diskBytes", diskUsage());
+        }
+        return stats;
+    }
+
+    private Map<String, Object> hit(Map<String, Object> cached) {
+        hits.incrementAndGet();
+        metrics.recordResultCache("hit");
+        Map<String, Object> copy = new HashMap<>(cached);
+        copy.put("resultCache", "hit");
+        return copy;
+    }
+
+    /**
+     * 内存层，其次磁盘层（命中后提升到内存层）；过期条目视为未命中
+     */
+    private Map<String, Object> lookup(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                if (now - e.created <= ttlMillis()) {
+                    return e.result;
+                }
+                entries.remove(key);
+                bytes -= e.bytes;
+            }
+        }
+        if (directory == null) {
+            return null;
+        }
+        Path file = file(key);
+        try {
+            if (!Files.exists(file) || now - Files.getLastModifiedTime(file).toMillis() > ttlMillis()) {
+                return null;
+            }
+            Map<String, Object> result;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+                result = objectMapper.readValue(in, new TypeReference<Map<String, Object>>() {});
+            }
+            diskHits.incrementAndGet();
+            putMemory(key, result, Files.getLastModifiedTime(file).toMillis());
+            return result;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void store(String key, Map<String, Object> result) {
+        Map<String, Object> stored = new HashMap<>(result);
+        stored.remove("executionTime");
+        putMemory(key, stored, System.currentTimeMillis());
+        if (diskWriter != null) {
+            diskWriter.execute(() -> writeDisk(key, stored));
+        }
+    }
+
+    private void putMemory(String key, Map<String, Object> result, long created) {
+        long size = estimateBytes(result);
+        if (size > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(result, size, created));
+            bytes += size - (previous != null ? previous.bytes : 0);
+            Iterator<Entry> it = entries.values().iterator();
+            while ((entries.size() > Math.max(1, maxEntries) || bytes > maxBytes) && it.hasNext()) {
+                bytes -= it.next().bytes;
+                it.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 写入临时文件后原子替换；超过磁盘上限时删除最旧的文件
+     */
+    private void writeDisk(String key, Map<String, Object> result) {
+        Path file = file(key);
+        try {
+            Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                objectMapper.writeValue(out, result);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long usage = diskUsage();
+            if (usage > diskMaxBytes) {
+                List<Path> files = new ArrayList<>();
+                try (Stream<Path> list = Files.list(directory)) {
+                    list.filter(f -> f.toString().endsWith(".json.gz")).forEach(files::add);
+                }
+                files.sort(Comparator.comparingLong(f -> f.toFile().lastModified()));
+                for (Path oldest : files) {
+                    if (usage <= diskMaxBytes) break;
+                    usage -= oldest.toFile().length();
+                    Files.deleteIfExists(oldest);
+                }
+            }
+        } catch (IOException e) {
+            // 磁盘层尽力而为，写入失败只影响后续命中
+        }
+    }
+
+    private long diskUsage() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(f -> f.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(ReasonerCache.sha256(key) + ".json.gz");
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.MINUTES.toMillis(ttlMinutes);
+    }
+
+    // 结果主要是字符串（序列化的结果数据），按 UTF-16 字符估算
+    private static long estimateBytes(Object value) {
+        if (value instanceof CharSequence) {
+            return 40 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof Map) {
+            long size = 64;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateBytes(e.getKey()) + estimateBytes(e.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 40;
+            for (Object item : (Collection<?>) value) {
+                size += 8 + estimateBytes(item);
+            }
+            return size;
+        }
+        return 16;
+    }
+
+    /**
+     * 输入图的规范哈希（SHA-256，十六进制），与三元组顺序、序列化格式和空白节点标签无关；前缀映射计入哈希，
+     * 使缓存的序列化结果与未缓存时完全一致
+     * 空白节点按邻接结构迭代细化标签（谓词 + 邻居标签），全部可区分时即为规范标记；
+     * 存在结构上无法区分的空白节点（对称结构）时返回 null
+     */
+    public static String canonicalHash(Model model) {
+        Graph graph = model.getGraph();
+        List<Triple> triples = graph.find().toList();
+
+        Map<Node, String> labels = blankNodeLabels(triples);
+        if (labels == null) {
+            return null;
+        }
+
+        List<String> lines = new ArrayList<>(triples.size() + 8);
+        for (Triple t : triples) {
+            lines.add(term(t.getSubject(), labels) + ' ' + term(t.getPredicate(), labels) + ' ' + term(t.getObject(), labels));
+        }
+        new TreeMap<>(model.getNsPrefixMap()).forEach((prefix, uri) -> lines.add("@prefix " + prefix + ": <" + uri + ">"));
+        Collections.sort(lines);
+
+        MessageDigest digest = sha256Digest();
+        for (String line : lines) {
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * 空白节点 -> 规范标签；无空白节点时为空映射，无法区分时为 null
+     */
+    private static Map<Node, String> blankNodeLabels(List<Triple> triples) {
+        Map<Node, List<Triple>> adjacent = new HashMap<>();
+        for (Triple t : triples) {
+            if (t.getSubject().isBlank()) adjacent.computeIfAbsent(t.getSubject(), k -> new ArrayList<>()).add(t);
+            if (t.getObject().isBlank() && !t.getObject().equals(t.getSubject())) {
+                adjacent.computeIfAbsent(t.getObject(), k -> new ArrayList<>()).add(t);
+            }
+        }
+        if (adjacent.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Node, String> labels = new HashMap<>();
+        adjacent.keySet().forEach(b -> labels.put(b, ""));
+        int distinct = 1;
+        // 每轮标签包含更远一跳的结构，区分度不再提高时停止
+        for (int round = 0; round < adjacent.size() && distinct < adjacent.size(); round++) {
+            Map<Node, String> next = new HashMap<>();
+            for (Map.Entry<Node, List<Triple>> e : adjacent.entrySet()) {
+                Node b = e.getKey();
+                List<String> edges = new ArrayList<>(e.getValue().size());
+                for (Triple t : e.getValue()) {
+                    if (t.getSubject().equals(b)) {
+                        edges.add("+" + NodeFmtLib.strNT(t.getPredicate()) + ' ' + term(t.getObject(), labels));
+                    }
+                    if (t.getObject().equals(b)) {
+                        edges.add("-" + NodeFmtLib.strNT(t.getPredicate()) + ' ' + term(t.getSubject(), labels));
+                    }
+                }
+                Collections.sort(edges);
+                MessageDigest digest = sha256Digest();
+                digest.update(labels.get(b).getBytes(StandardCharsets.UTF_8));
+                for (String edge : edges) {
+                    digest.update((byte) '\n');
+                    digest.update(edge.getBytes(StandardCharsets.UTF_8));
+                }
+                next.put(b, "_:" + hex(digest.digest()).substring(0, 32));
+            }
+            int refined = new HashSet<>(next.values()).size();
+            labels.putAll(next);
+            if (refined == distinct) {
+                break;
+            }
+            distinct = refined;
+        }
+        return distinct == adjacent.size() ? labels : null;
+    }
+
+    private static String term(Node node, Map<Node, String> labels) {
+        return node.isBlank() ? labels.get(node) : NodeFmtLib.strNT(node);
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Incremental write-back of reasoning results: only the inferred delta is written, and every
+// derived fact is tagged with provenance so a later run can retract what no longer holds.
+//
+//  - relationships get `inferred: true`, `scope`, `rule` and `runId` properties;
+//  - literal properties get a sidecar property `<key>__prov` = "<scope>|<runId>|<rule>"; their
+//    values are typed like imported ones (see LiteralCodec), but single-valued. The node also
+//    gets the indexed marker `__prov` = true, so retraction only visits nodes that have (or
+//    had) inferred properties instead of the keys of every node;
+//  - inferred rdf:type facts are written as TYPE relationships only. Labels stay a projection
+//    of asserted types, so retraction never has to decide which label came from which run.
+//
+// A run owns the derivations of its `scope` (by default reasoner type + rules hash): after the
+// delta is written, derivations of that scope that were not re-derived by this run are removed.
+// Asserted facts (without `inferred`/sidecar) are never modified or retracted. Importing a value
+// for a property that currently holds an inferred one replaces it and drops the sidecar (see
+// Neo4jBulkWriter), so the property is asserted from then on.
+@Component
+public class InferenceWriter {
+    public static final String PROV_SUFFIX = "__prov";
+    // Node marker; ends with PROV_SUFFIX, so readers that skip sidecars skip it too
+    public static final String PROV_MARKER = PROV_SUFFIX;
+
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+    private static final String RESOURCE = "`" + RdfService.RESOURCE_LABEL + "`";
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Autowired
+    private Neo4jBulkWriter bulkWriter;
+
+    // Write `delta` for run `runId` in `scope`, naming the producing rule with `ruleOf`,
+    // then retract derivations of the same scope from earlier runs. Returns write statistics.
+    public Map<String, Object> write(Model delta, String scope, String runId, Function<Statement, String> ruleOf) {
+        ImportStats stats = new ImportStats();
+        long t0 = System.currentTimeMillis();
+        Set<String> nodes = new LinkedHashSet<>();
+        List<Map<String, Object>> props = new ArrayList<>();
+        Map<String, List<Map<String, Object>>> rels = new LinkedHashMap<>();
+
+        StmtIterator it = delta.listStatements();
+        while (it.hasNext()) {
+            Statement s = it.next();
+            String subjId = nodeId(s.getSubject());
+            String predLocal = RdfService.localName(s.getPredicate().getURI());
+            String rule = ruleOf.apply(s);
+            RDFNode obj = s.getObject();
+            nodes.add(subjId);
+
+            Map<String, Object> row = new HashMap<>();
+            row.put("scope", scope);
+            row.put("run", runId);
+            row.put("rule", rule);
+            if (obj.isLiteral()) {
+                row.put("iri", subjId);
+                row.put("p", predLocal);
+                row.put("v", LiteralCodec.value(obj.asNode()));
+                String datatype = LiteralCodec.datatype(obj.asNode());
+                row.put("d", datatype.isEmpty() ? null : datatype);
+                row.put("prov", scope + "|" + runId + "|" + rule);
+                props.add(row);
+            } else {
+                String objId = nodeId(obj.asResource());
+                nodes.add(objId);
+                row.put("a", subjId);
+                row.put("b", objId);
+                String relType = s.getPredicate().getURI().equals(RDF_TYPE) ? "TYPE" : predLocal.toUpperCase();
+                rels.computeIfAbsent(relType, k -> new ArrayList<>()).add(row);
+            }
+        }
+        stats.addTriples(delta.size());
+
+        List<Map<String, Object>> nodeRows = new ArrayList<>(nodes.size());
+        for (String iri : nodes) nodeRows.add(Collections.singletonMap("iri", iri));
+        bulkWriter.runChunked("UNWIND $rows AS row MERGE (n:" + RESOURCE + " {iri: row.iri})", nodeRows, stats);
+        stats.addNodes(nodeRows.size());
+
+        // Never overwrite an asserted value: only set the property if it is absent or already inferred
+        bulkWriter.runChunked("UNWIND $rows AS row MATCH (n:" + RESOURCE + " {iri: row.iri}) "
+                + "WITH n, row WHERE n[row.p] IS NULL OR n[row.p + '" + PROV_SUFFIX + "'] IS NOT NULL "
+                + "SET n[row.p] = row.v, n[row.p + '" + LiteralCodec.DATATYPE_SUFFIX + "'] = row.d, "
+                + "n[row.p + '" + PROV_SUFFIX + "'] = row.prov, n.`" + PROV_MARKER + "` = true", props, stats);
+        stats.addProperties(props.size());
+
+        for (Map.Entry<String, List<Map<String, Object>>> e : rels.entrySet()) {
+            // An existing asserted relationship is left as is; an inferred one of this scope is refreshed
+            String cy = "UNWIND $rows AS row MATCH (a:" + RESOURCE + " {iri: row.a}), (b:" + RESOURCE + " {iri: row.b}) "
+                    + "MERGE (a)-[r:`" + e.getKey() + "`]->(b) "
+                    + "ON CREATE SET r.inferred = true, r.scope = row.scope "
+                    + "WITH r, row WHERE r.inferred = true AND r.scope = row.scope "
+                    + "SET r.runId = row.run, r.rule = row.rule";
+            bulkWriter.runChunked(cy, e.getValue(), stats);
+            stats.addRelationships(e.getValue().size());
+        }
+        long t1 = System.currentTimeMillis();
+        stats.addPhaseTime("write", t1 - t0);
+
+        long retracted = retract(scope, runId);
+        stats.addPhaseTime("retract", System.currentTimeMillis() - t1);
+
+        Map<String, Object> result = stats.toMap();
+        result.put("runId", runId);
+        result.put("scope", scope);
+        result.put("retracted", retracted);
+        return result;
+    }
+
+    // Remove derivations of `scope` that were not refreshed by `runId`
+    public long retract(String scope, String runId) {
+        Long rels = neo4jClient.query("MATCH (:" + RESOURCE + ")-[r]->(:" + RESOURCE + ") "
+                        + "WHERE r.inferred = true AND r.scope = $scope AND r.runId <> $run "
+                        + "DELETE r RETURN count(r) AS c")
+                .bind(scope).to("scope").bind(runId).to("run")
+                .fetchAs(Long.class).one().orElse(0L);
+
+        String prefix = scope + "|";
+        String current = scope + "|" + runId + "|";
+        // The marker is removed once a node has no provenance sidecars left (retracted here, or
+        // taken over by an import)
+        Long props = neo4jClient.query("MATCH (n:" + RESOURCE + ") WHERE n.`" + PROV_MARKER + "` IS NOT NULL "
+                        + "WITH n, [k IN keys(n) WHERE k ENDS WITH '" + PROV_SUFFIX + "' AND k <> '" + PROV_MARKER + "'] AS provKeys "
+                        + "WITH n, provKeys, [k IN provKeys WHERE n[k] STARTS WITH $prefix AND NOT n[k] STARTS WITH $current] AS stale "
+                        + "FOREACH (k IN stale | SET n[substring(k, 0, size(k) - " + PROV_SUFFIX.length() + ")] = null, "
+                        + "n[substring(k, 0, size(k) - " + PROV_SUFFIX.length() + ") + '" + LiteralCodec.DATATYPE_SUFFIX + "'] = null, n[k] = null) "
+                        + "FOREACH (x IN CASE WHEN size(stale) = size(provKeys) THEN [1] ELSE [] END | REMOVE n.`" + PROV_MARKER + "`) "
+                        + "RETURN sum(size(stale)) AS c")
+                .bind(prefix).to("prefix").bind(current).to("current")
+                .fetchAs(Long.class).one().orElse(0L);
+        return rels + props;
+    }
+
+    private String nodeId(Resource r) {
+        return r.isURIResource() ? r.getURI() : ("_bnode_" + r.getId().getLabelString());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.WrappedGraph;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.WrappedIterator;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 可中断的数据图
+ * Jena 规则引擎不响应线程中断；包装推理输入图后，引擎每次查找/遍历数据时（find 及迭代器的
+ * hasNext/next）检查中断标志，使超时或取消的推理任务能尽快以 CancellationException 结束
+ * 前向（含 FORWARD_RETE）引擎在 RETE 网络中触发规则时，每个结论三元组写入推理图前都先经
+ * contains 查询数据图，因此规则触发过程同样会检查中断
+ * 推理在其他线程中执行时（分区推理的 ForkJoinPool 线程、TDB2 读线程），以发起线程的停止信号
+ * （stopSignal）作为协作式停止标志：执行线程本身不被中断，检查到标志后自行结束
+ */
+public class InterruptibleGraph extends WrappedGraph {
+
+    /** 由 callWithStop 为当前线程登记的额外停止标志 */
+    private static final ThreadLocal<BooleanSupplier> STOP = new ThreadLocal<>();
+
+    private final BooleanSupplier stopped;
+
+    public InterruptibleGraph(Graph base) {
+        this(base, stopSignal());
+    }
+
+    public InterruptibleGraph(Graph base, BooleanSupplier stopped) {
+        super(base);
+        this.stopped = stopped;
+    }
+
+    /**
+     * 当前线程的停止信号：线程被中断，或 callWithStop 登记的标志已置位
+     */
+    public static BooleanSupplier stopSignal() {
+        Thread thread = Thread.currentThread();
+        BooleanSupplier extra = STOP.get();
+        return extra == null ? thread::isInterrupted : () -> thread.isInterrupted() || extra.getAsBoolean();
+    }
+
+    /**
+     * 在当前线程上执行 action，期间 stop 置位即视为停止请求（checkInterrupted 等检查随之生效）
+     */
+    public static <T> T callWithStop(BooleanSupplier stop, Supplier<T> action) {
+        BooleanSupplier previous = STOP.get();
+        STOP.set(stop);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) STOP.remove(); else STOP.set(previous);
+        }
+    }
+
+    @Override
+    public ExtendedIterator<Triple> find(Triple triple) {
+        check();
+        return new Checked(super.find(triple));
+    }
+
+    @Override
+    public ExtendedIterator<Triple> find(Node s, Node p, Node o) {
+        check();
+        return new Checked(super.find(s, p, o));
+    }
+
+    private boolean check() {
+        if (stopped.getAsBoolean()) {
+            throw new CancellationException("Reasoning interrupted");
+        }
+        return checkInterrupted();
+    }
+
+    /**
+     * 当前线程已被中断或已请求停止时抛出 CancellationException（保留中断标志）
+     */
+    public static boolean checkInterrupted() {
+        if (stopSignal().getAsBoolean()) {
+            throw new CancellationException("Reasoning interrupted");
+        }
+        return true;
+    }
+
+    /**
+     * 每次 hasNext/next 都检查中断的迭代器
+     */
+    private final class Checked extends WrappedIterator<Triple> {
+
+        Checked(ExtendedIterator<Triple> base) {
+            super(base, false);
+        }
+
+        @Override
+        public boolean hasNext() {
+            check();
+            return super.hasNext();
+        }
+
+        @Override
+        public Triple next() {
+            check();
+            return super.next();
+        }
+    }
+}
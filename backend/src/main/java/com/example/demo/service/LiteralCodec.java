@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Mapping between RDF literals and Neo4j property values.
+// Literals of the XSD integer types, decimal, double, float, boolean, date and dateTime are
+// stored as native Neo4j values (Long, Double, Boolean, Date, DateTime), so that
+// Cypher compares them as numbers and dates and exported data carries typed literals again;
+// everything else, and lexical forms a type cannot hold exactly (out-of-range integers, decimals
+// a double cannot represent, dateTimes without timezone, ill-typed values), is stored as its
+// lexical form.
+// The datatype or language tag goes into the sidecar property `<key>__dt`: "xsd:integer" (XSD
+// datatypes abbreviated), a full datatype IRI, or "@lang". Only plain xsd:string literals have no
+// sidecar, so the sidecar also tells which stored values share a Neo4j type (a list property
+// must not mix types). A predicate with several values is a list property with a list sidecar
+// of the same length, "" marking a plain string. Values without a sidecar (written by other tools) are read
+// back with the default datatype of their Neo4j type.
+// Native values are written in canonical form, so "0500"^^xsd:integer reads back as
+// "500"^^xsd:integer: the value and datatype survive a round trip, not the exact spelling.
+public final class LiteralCodec {
+    public static final String DATATYPE_SUFFIX = "__dt";
+
+    // sidecar entry of a plain string
+    public static final String PLAIN = "";
+
+    private static final String XSD = XSDDatatype.XSD + "#";
+    private static final String XSD_PREFIX = "xsd:";
+
+    private static final Set<String> INTEGER_TYPES = new HashSet<>(Arrays.asList(
+            "integer", "long", "int", "short", "byte", "nonNegativeInteger", "positiveInteger",
+            "nonPositiveInteger", "negativeInteger", "unsignedLong", "unsignedInt", "unsignedShort", "unsignedByte"));
+
+    // xsd:double lexical space without the special values; Java also accepts "Infinity", hex
+    // and a trailing d/f
+    private static final Pattern DOUBLE = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private LiteralCodec() {
+    }
+
+    // Neo4j value of a literal: a native value or the lexical form
+    public static Object value(Node literal) {
+        String lex = literal.getLiteralLexicalForm();
+        String dt = literal.getLiteralDatatypeURI();
+        if (!literal.getLiteralLanguage().isEmpty() || dt == null || !dt.startsWith(XSD)) return lex;
+        String type = dt.substring(XSD.length());
+        try {
+            if (INTEGER_TYPES.contains(type)) return Long.parseLong(lex.trim());
+            switch (type) {
+                case "decimal": {
+                    BigDecimal exact = new BigDecimal(lex.trim());
+                    double d = exact.doubleValue();
+                    return BigDecimal.valueOf(d).compareTo(exact) == 0 ? d : lex;
+                }
+                case "double":
+                case "float":
+                    return parseDouble(lex.trim());
+                case "boolean":
+                    switch (lex.trim()) {
+                        case "true": case "1": return Boolean.TRUE;
+                        case "false": case "0": return Boolean.FALSE;
+                        default: return lex;
+                    }
+                case "date":
+                    return LocalDate.parse(lex.trim());
+                case "dateTime": {
+                    // only with a timezone (Z or ±hh:mm after the time): a LocalDateTime could not
+                    // share a list with DateTime values of the same datatype
+                    String s = lex.trim();
+                    return s.endsWith("Z") || s.lastIndexOf('+') > 10 || s.lastIndexOf('-') > 10 ? OffsetDateTime.parse(s) : lex;
+                }
+                default:
+                    return lex;
+            }
+        } catch (RuntimeException e) {
+            // ill-typed or out of range: keep the lexical form
+            return lex;
+        }
+    }
+
+    // Sidecar entry of a literal
+    public static String datatype(Node literal) {
+        if (!literal.getLiteralLanguage().isEmpty()) return "@" + literal.getLiteralLanguage();
+        String dt = literal.getLiteralDatatypeURI();
+        if (dt == null || XSDDatatype.XSDstring.getURI().equals(dt)) return PLAIN;
+        return dt.startsWith(XSD) ? XSD_PREFIX + dt.substring(XSD.length()) : dt;
+    }
+
+    // Lexical form of a value as written by value(); used where Neo4j needs a single type per list
+    public static String lexical(Object value, String datatype) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            String type = expand(datatype);
+            if ((XSD + "decimal").equals(type)) return BigDecimal.valueOf(d).toPlainString();
+            if (Double.isNaN(d)) return "NaN";
+            if (Double.isInfinite(d)) return d > 0 ? "INF" : "-INF";
+            return (XSD + "float").equals(type) ? Float.toString((float) d) : Double.toString(d);
+        }
+        if (value instanceof ZonedDateTime) return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((ZonedDateTime) value);
+        if (value instanceof OffsetDateTime) return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format((OffsetDateTime) value);
+        if (value instanceof LocalDateTime) return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime) value);
+        return String.valueOf(value);
+    }
+
+    // Literal for a stored value and its sidecar entry (null or "" = plain / default datatype)
+    public static Node literal(Object value, String datatype) {
+        if (datatype != null && datatype.startsWith("@")) {
+            return NodeFactory.createLiteral(String.valueOf(value), datatype.substring(1));
+        }
+        String dt = datatype == null || datatype.isEmpty() ? defaultDatatype(value) : expand(datatype);
+        if (dt == null) return NodeFactory.createLiteral(String.valueOf(value));
+        return NodeFactory.createLiteral(lexical(value, dt), TypeMapper.getInstance().getSafeTypeByName(dt));
+    }
+
+    // Literals of a property: one per element of a list value, aligned with a list sidecar
+    public static List<Node> literals(Object value, Object datatypes) {
+        if (!(value instanceof List)) {
+            return Collections.singletonList(literal(value, datatypes instanceof String ? (String) datatypes : null));
+        }
+        List<?> values = (List<?>) value;
+        List<Node> literals = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object dt = datatypes instanceof List ? (i < ((List<?>) datatypes).size() ? ((List<?>) datatypes).get(i) : null) : datatypes;
+            if (values.get(i) != null) literals.add(literal(values.get(i), dt == null ? null : dt.toString()));
+        }
+        return literals;
+    }
+
+    private static String defaultDatatype(Object value) {
+        if (value instanceof Long || value instanceof Integer) return XSD + "integer";
+        if (value instanceof Double || value instanceof Float) return XSD + "double";
+        if (value instanceof Boolean) return XSD + "boolean";
+        if (value instanceof LocalDate) return XSD + "date";
+        if (value instanceof ZonedDateTime || value instanceof OffsetDateTime || value instanceof LocalDateTime) return XSD + "dateTime";
+        return null;
+    }
+
+    private static String expand(String datatype) {
+        return datatype != null && datatype.startsWith(XSD_PREFIX) ? XSD + datatype.substring(XSD_PREFIX.length()) : datatype;
+    }
+
+    private static double parseDouble(String lex) {
+        switch (lex) {
+            case "INF": case "+INF": return Double.POSITIVE_INFINITY;
+            case "-INF": return Double.NEGATIVE_INFINITY;
+            case "NaN": return Double.NaN;
+            default:
+                if (!DOUBLE.matcher(lex).matches()) throw new NumberFormatException(lex);
+                return Double.parseDouble(lex);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.service;
+
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.ResultCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Writes an RdfImportBatch to Neo4j with parameterised `UNWIND $rows` statements.
+// Phases run in dependency order (nodes, labels, properties, relationships); each phase
+// is split into chunks of `rdf.import.batch-size` rows and every chunk runs in its own
+// explicit transaction, so one Bolt round trip replaces up to batch-size single queries.
+// With `rdf.import.concurrency` > 1 the chunks of a phase are spread over that many lanes
+// and written concurrently through the driver's async API, so round trips overlap instead
+// of queueing behind each other.
+@Component
+public class Neo4jBulkWriter {
+    // All lookups go through the indexed label (see Neo4jSchemaInitializer)
+    private static final String RESOURCE = "`" + RdfService.RESOURCE_LABEL + "`";
+
+    private static final String DT = LiteralCodec.DATATYPE_SUFFIX;
+    private static final String PROV = InferenceWriter.PROV_SUFFIX;
+
+    // Adds the values of a property row (vs, with sidecar entries ds and lexical forms ss, see
+    // RdfImportBatch) to those already on the node, skipping values it already has, so that
+    // re-importing the same data changes nothing and multi-valued predicates accumulate across
+    // chunks and imports. One value is stored as a scalar, several as a list; values of different
+    // Neo4j types (different sidecar entries, or strings next to native values) cannot share a
+    // list and are stored as their lexical forms, which is why values are also compared by them.
+    // An inferred value (one with a `<key>__prov` sidecar, see InferenceWriter) is replaced, not
+    // merged, and the sidecar removed: the property is asserted from now on, so a later inference
+    // run neither overwrites it nor retracts it.
+    // Rows hold one node and key each, so no row reads a property another row of the statement writes.
+    private static final String PROPERTY_MERGE = "UNWIND $rows AS row MATCH (n:" + RESOURCE + " {iri: row.iri}) "
+            + "WITH n, row, n[row.p + '" + PROV + "'] IS NOT NULL AS inferred "
+            + "WITH n, row, CASE WHEN inferred THEN [] ELSE [] + coalesce(n[row.p], []) END AS old, "
+            + "CASE WHEN inferred THEN null ELSE n[row.p + '" + DT + "'] END AS oldDt "
+            + "WITH n, row, old, CASE WHEN oldDt IS NULL THEN [x IN old | ''] ELSE [] + oldDt END AS oldDs "
+            + "WITH n, row, old, oldDs, [i IN range(0, size(row.vs) - 1) "
+            + "WHERE NOT any(j IN range(0, size(old) - 1) WHERE oldDs[j] = row.ds[i] AND (old[j] = row.vs[i] OR toString(old[j]) = row.ss[i]))] AS fresh "
+            + "WHERE size(fresh) > 0 "
+            + "WITH n, row, old + [i IN fresh | row.vs[i]] AS vs, oldDs + [i IN fresh | row.ds[i]] AS ds, "
+            + "[x IN old | toString(x)] + [i IN fresh | row.ss[i]] AS ss "
+            + "WITH n, row, vs, ds, ss, all(d IN ds WHERE d = ds[0]) "
+            + "AND (all(x IN vs WHERE toString(x) = x) OR none(x IN vs WHERE toString(x) = x)) AS uniform "
+            + "SET n[row.p] = CASE WHEN size(vs) = 1 THEN vs[0] WHEN uniform THEN vs ELSE ss END, "
+            + "n[row.p + '" + DT + "'] = CASE WHEN all(d IN ds WHERE d = '') THEN null WHEN size(ds) = 1 THEN ds[0] ELSE ds END, "
+            + "n[row.p + '" + PROV + "'] = null";
+
+    @Autowired
+    private Driver driver;
+
+    @Value("${rdf.import.batch-size:5000}")
+    private int batchSize;
+
+    // Chunk transactions in flight per phase; 1 = one chunk at a time (runChunked)
+    @Value("${rdf.import.concurrency:4}")
+    private int concurrency;
+
+    @Value("${spring.data.neo4j.database:}")
+    private String database;
+
+    // Runs writeAsync(); one thread per concurrent streaming import
+    private ExecutorService pipeline;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        pipeline = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rdf-import-pipeline-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pipeline.shutdownNow();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isConcurrent() {
+        return concurrency > 1;
+    }
+
+    // write() on a pipeline thread, so the caller (e.g. the streaming parser) can fill the
+    // next batch meanwhile. The batch must not be modified until the future completes.
+    public CompletableFuture<Void> writeAsync(RdfImportBatch batch, ImportStats stats) {
+        return CompletableFuture.runAsync(() -> write(batch, stats), pipeline);
+    }
+
+    public void write(RdfImportBatch batch, ImportStats stats) {
+        long t0 = System.currentTimeMillis();
+        List<Map<String, Object>> nodeRows = batch.getNodeRows();
+        runLanes("UNWIND $rows AS row MERGE (n:" + RESOURCE + " {iri: row.iri})", nodeRows, "iri", stats);
+        stats.addNodes(nodeRows.size());
+        long t1 = System.currentTimeMillis();
+        stats.addPhaseTime("nodes", t1 - t0);
+
+        for (Map.Entry<String, List<Map<String, Object>>> e : batch.getLabelRows().entrySet()) {
+            // Labels cannot be parameterised, so one statement per distinct label
+            String cy = String.format("UNWIND $rows AS row MATCH (n:" + RESOURCE + " {iri: row.iri}) SET n:`%s`", e.getKey());
+            runLanes(cy, e.getValue(), "iri", stats);
+            stats.addLabels(e.getValue().size());
+        }
+        long t2 = System.currentTimeMillis();
+        stats.addPhaseTime("labels", t2 - t1);
+
+        List<Map<String, Object>> propertyRows = batch.getPropertyRows();
+        runLanes(PROPERTY_MERGE, propertyRows, "iri", stats);
+        stats.addProperties(propertyRows.size());
+        long t3 = System.currentTimeMillis();
+        stats.addPhaseTime("properties", t3 - t2);
+
+        for (Map.Entry<String, List<Map<String, Object>>> e : batch.getRelationshipRows().entrySet()) {
+            // Relationship types cannot be parameterised either. An inferred relationship that is
+            // now imported becomes asserted, so retraction leaves it alone (see InferenceWriter)
+            String cy = "UNWIND $rows AS row MATCH (a:" + RESOURCE + " {iri: row.a}), (b:" + RESOURCE + " {iri: row.b}) MERGE (a)-[r:`" + e.getKey() + "`]->(b) "
+                    + "SET r.inferred = null, r.scope = null, r.runId = null, r.rule = null";
+            runLanes(cy, e.getValue(), "a", stats);
+            stats.addRelationships(e.getValue().size());
+        }
+        stats.addPhaseTime("relationships", System.currentTimeMillis() - t3);
+    }
+
+    // One transaction per chunk. Like the lanes, chunks run as managed write transactions, so
+    // transient failures (deadlocks with concurrent imports, leader switches) are retried
+    void runChunked(String cypher, List<Map<String, Object>> rows, ImportStats stats) {
+        int step = Math.max(1, batchSize);
+        try (Session session = driver.session(sessionConfig())) {
+            for (int from = 0; from < rows.size(); from += step) {
+                Map<String, Object> params = Collections.singletonMap("rows", rows.subList(from, Math.min(rows.size(), from + step)));
+                session.writeTransaction(tx -> tx.run(cypher, params).consume());
+                stats.addQueries(1);
+            }
+        }
+    }
+
+    // Concurrent variant of runChunked. Rows go to a lane by the node they write to (`laneKey`),
+    // so rows for one node stay in one lane in source order and concurrent transactions do not
+    // contend for its lock. Each lane has a single chunk transaction in flight, which bounds the
+    // load on Neo4j; writeTransactionAsync retries transient failures such as deadlocks.
+    void runLanes(String cypher, List<Map<String, Object>> rows, String laneKey, ImportStats stats) {
+        if (concurrency <= 1 || rows.size() <= batchSize) {
+            runChunked(cypher, rows, stats);
+            return;
+        }
+        List<List<Map<String, Object>>> lanes = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            lanes.add(new ArrayList<>(rows.size() / concurrency + 1));
+        }
+        for (Map<String, Object> row : rows) {
+            lanes.get(Math.floorMod(String.valueOf(row.get(laneKey)).hashCode(), concurrency)).add(row);
+        }
+        List<CompletableFuture<Integer>> running = new ArrayList<>(concurrency);
+        for (List<Map<String, Object>> lane : lanes) {
+            if (!lane.isEmpty()) running.add(runLane(cypher, lane));
+        }
+        try {
+            CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        for (CompletableFuture<Integer> lane : running) {
+            stats.addQueries(lane.join());
+        }
+    }
+
+    private SessionConfig sessionConfig() {
+        return database.isEmpty() ? SessionConfig.defaultConfig() : SessionConfig.forDatabase(database);
+    }
+
+    // Chunks of one lane, one after another in a single session; completes with the chunk count
+    private CompletableFuture<Integer> runLane(String cypher, List<Map<String, Object>> rows) {
+        AsyncSession session = driver.asyncSession(sessionConfig());
+        int step = Math.max(1, batchSize);
+        CompletionStage<Integer> chain = CompletableFuture.completedFuture(0);
+        for (int from = 0; from < rows.size(); from += step) {
+            Map<String, Object> params = Collections.singletonMap("rows", rows.subList(from, Math.min(rows.size(), from + step)));
+            chain = chain.thenCompose(done -> session
+                    .writeTransactionAsync(tx -> tx.runAsync(cypher, params).thenCompose(ResultCursor::consumeAsync))
+                    .thenApply(summary -> done + 1));
+        }
+        return chain
+                .handle((done, error) -> session.closeAsync().thenApply(closed -> {
+                    if (error != null) throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                    return done;
+                }))
+                .thenCompose(Function.identity())
+                .toCompletableFuture();
+    }
+}
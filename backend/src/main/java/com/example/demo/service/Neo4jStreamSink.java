@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.apache.jena.sparql.core.Quad;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// StreamRDF sink used by the streaming import: triples go straight from the parser into an
+// RdfImportBatch that is flushed to Neo4j whenever it holds `chunkSize` rows, so memory is
+// bounded by the chunk size rather than by the payload size.
+// Unlike the Model-based import, blank-node objects are always created as nodes, since a
+// later chunk cannot be searched for whether the blank node also appears as a subject.
+// With a concurrent writer a full chunk is written on the pipeline thread while the parser
+// fills the next one; at most one chunk is in flight, so memory stays at two chunks.
+// Alternatively full chunks can be handed to a consumer instead of being written (the parallel
+// importer collects them and writes them in file order). Quads are imported as their triple,
+// since the graph has no notion of named graphs.
+// Every chunk has its own TermDictionary, so the term table is bounded by the chunk as well;
+// predicate keys and labels are resolved once per sink.
+public class Neo4jStreamSink extends StreamRDFBase {
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+
+    private final Neo4jBulkWriter writer;
+    private final Consumer<RdfImportBatch> handoff;
+    private final ImportStats stats;
+    private final int chunkSize;
+    private RdfImportBatch batch;
+    private CompletableFuture<Void> pending;
+
+    public Neo4jStreamSink(Neo4jBulkWriter writer, ImportStats stats, int chunkSize, Function<String, String> localName) {
+        this(writer, null, stats, chunkSize, localName);
+    }
+
+    // Hands every full chunk (and the last one on finish) to `handoff` instead of writing it
+    public Neo4jStreamSink(Consumer<RdfImportBatch> handoff, ImportStats stats, int chunkSize, Function<String, String> localName) {
+        this(null, handoff, stats, chunkSize, localName);
+    }
+
+    private Neo4jStreamSink(Neo4jBulkWriter writer, Consumer<RdfImportBatch> handoff, ImportStats stats, int chunkSize,
+                            Function<String, String> localName) {
+        this.writer = writer;
+        this.handoff = handoff;
+        this.stats = stats;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batch = new RdfImportBatch(new TermDictionary(localName));
+    }
+
+    @Override
+    public void triple(Triple triple) {
+        TermDictionary terms = batch.getTerms();
+        Node p = triple.getPredicate();
+        Node o = triple.getObject();
+        int subjId = terms.id(triple.getSubject());
+        TermDictionary.Predicate predicate = terms.predicate(p);
+        batch.addNode(subjId);
+
+        if (o.isLiteral()) {
+            batch.addProperty(subjId, predicate.getKey(), o);
+        } else {
+            int objId = terms.id(o);
+            batch.addNode(objId);
+            if (RDF_TYPE.equals(p.getURI())) {
+                batch.addLabel(subjId, terms.label(o));
+            }
+            batch.addRelationship(subjId, predicate.getRelationshipType(), objId);
+        }
+        stats.addTriples(1);
+        if (batch.size() >= chunkSize) flush();
+    }
+
+    @Override
+    public void quad(Quad quad) {
+        triple(quad.asTriple());
+    }
+
+    @Override
+    public void finish() {
+        flush();
+        awaitPending();
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) return;
+        if (handoff != null) {
+            handoff.accept(batch);
+            batch = new RdfImportBatch(batch.getTerms().next());
+            return;
+        }
+        // chunks are written in order: a later chunk may set the same properties again
+        awaitPending();
+        if (writer.isConcurrent()) {
+            pending = writer.writeAsync(batch, stats);
+            batch = new RdfImportBatch(batch.getTerms().next());
+        } else {
+            writer.write(batch, stats);
+            batch.clear();
+        }
+    }
+
+    private void awaitPending() {
+        if (pending == null) return;
+        try {
+            pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        } finally {
+            pending = null;
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.reasoner.Reasoner;
+import org.apache.jena.riot.RDFDataMgr;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 命名本体（TBox）注册表
+ * 本体注册一次后，按推理器类型/规则集预先 bindSchema 并缓存（ReasonerCache，按本体内容指纹区分），
+ * 每次请求只需提交实例数据（ABox），不再重复计算本体自身的闭包
+ */
+@Component
+public class OntologyRegistry {
+
+    /** 启动时自动注册的 CRM 过户本体名称 */
+    public static final String CRM_TRANSFER = "crm-transfer";
+
+    @Autowired
+    private ReasonerCache reasonerCache;
+
+    /** 本体名 -> 本体及其内容指纹；两者一起替换，读取方总是得到对应的一对 */
+    private final Map<String, Registered> schemas = new ConcurrentHashMap<>();
+
+    private static final class Registered {
+        final Model schema;
+        /** 推理器缓存和推理结果缓存键的一部分，重新注册后旧条目不再命中 */
+        final String fingerprint;
+
+        Registered(Model schema, String fingerprint) {
+            this.schema = schema;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * 启动时加载 CRM 过户本体（文件不存在时跳过）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBundledOntologies() {
+        String[] possiblePaths = {
+            "/app/ontology/crm-transfer-ontology.rdf",  // Docker容器内路径
+            "/workspaces/smart-telecom-ontology-engine/ontology/crm-transfer-ontology.rdf",  // 开发环境路径
+            "ontology/crm-transfer-ontology.rdf"  // 相对路径
+        };
+        for (String pathStr : possiblePaths) {
+            Path path = Paths.get(pathStr);
+            if (Files.exists(path)) {
+                register(CRM_TRANSFER, RDFDataMgr.loadModel(path.toString()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 注册（或替换）命名本体
+     */
+    public void register(String name, Model schema) {
+        String fingerprint = InferenceResultCache.canonicalHash(schema);
+        schemas.put(name, new Registered(schema, fingerprint != null ? fingerprint : UUID.randomUUID().toString()));
+    }
+
+    public boolean contains(String name) {
+        return schemas.containsKey(name);
+    }
+
+    public Model getSchema(String name) {
+        return registered(name).schema;
+    }
+
+    private Registered registered(String name) {
+        Registered registered = schemas.get(name);
+        if (registered == null) {
+            throw new IllegalArgumentException("Unknown ontology: " + name);
+        }
+        return registered;
+    }
+
+    /**
+     * 本体内容指纹：内容的规范哈希（含无法规范标记的空白节点时为每次注册随机生成）
+     */
+    public String getFingerprint(String name) {
+        return registered(name).fingerprint;
+    }
+
+    /**
+     * 已注册本体及其三元组数
+     */
+    public Map<String, Long> list() {
+        Map<String, Long> result = new TreeMap<>();
+        schemas.forEach((name, registered) -> result.put(name, registered.schema.size()));
+        return result;
+    }
+
+    /**
+     * 获取已绑定本体的推理器；首次调用时执行 bindSchema，之后复用
+     */
+    public Reasoner getBoundReasoner(String name, ReasonerType type, String customRules) {
+        return getBoundReasoner(name, type, customRules, null);
+    }
+
+    /**
+     * 获取已绑定本体的推理器（可指定 CUSTOM 规则引擎配置，为空时按 AUTO 处理）
+     */
+    public Reasoner getBoundReasoner(String name, ReasonerType type, String customRules, RuleEngineConfig engine) {
+        return getBoundEntry(name, type, customRules, engine).getReasoner();
+    }
+
+    /**
+     * 本体自身的推理闭包（与 getBoundReasoner 使用同一绑定），推理结果中去掉这部分即为由实例数据得出的事实
+     */
+    public List<Triple> getSchemaClosure(String name, ReasonerType type, String customRules, RuleEngineConfig engine) {
+        return getBoundEntry(name, type, customRules, engine).getSchemaClosure();
+    }
+
+    private ReasonerCache.Entry getBoundEntry(String name, ReasonerType type, String customRules, RuleEngineConfig engine) {
+        Registered registered = registered(name);
+        return reasonerCache.getBoundEntry(registered.fingerprint, registered.schema, type, customRules, engine);
+    }
+
+}
@@ -0,0 +1,265 @@
+package com.example.demo.service;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.RiotException;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Parallel import of line-based RDF (N-Triples, N-Quads) from a file. The file is cut into
+// segments of about `rdf.import.parallel.segment-bytes` at line boundaries (a triple never spans
+// lines in these formats), each segment is memory-mapped and parsed on its own thread, and the
+// triples go through a Neo4jStreamSink per segment, so parsing is no longer bound to one core.
+// Blank-node labels are document-scoped: every segment allocates blank nodes from a hash of the
+// same per-import seed and the label, so `_:b1` in two segments is the same node.
+// Unordered (default): each segment writes its own chunks as it parses them, concurrently with
+// the other segments; a chunk that deadlocks with another segment's is retried (Neo4jBulkWriter
+// runs every chunk as a managed write transaction). Ordered: segments are parsed ahead into chunks and written one segment
+// after the other in file order by a single writer, so a property set twice in the file ends
+// up with its last value; at most 2 x threads parsed segments wait for the writer.
+@Component
+public class ParallelNTriplesImporter {
+
+    @Autowired
+    private Neo4jBulkWriter bulkWriter;
+
+    @Autowired
+    private ReasoningMetrics metrics;
+
+    @Value("${rdf.import.stream-chunk-size:20000}")
+    private int chunkSize;
+
+    // Parser threads; 0 = one per available processor
+    @Value("${rdf.import.parallel.threads:0}")
+    private int threads;
+
+    @Value("${rdf.import.parallel.segment-bytes:16777216}")
+    private long segmentBytes;
+
+    @Value("${rdf.import.parallel.ordered:false}")
+    private boolean ordered;
+
+    private ExecutorService parsers;
+    private ExecutorService writer;
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
+        // a MappedByteBuffer is int-indexed; keep segments well below that
+        segmentBytes = Math.max(64 * 1024, Math.min(segmentBytes, 1L << 30));
+        AtomicInteger seq = new AtomicInteger();
+        parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "rdf-parse-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rdf-parse-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        parsers.shutdownNow();
+        writer.shutdownNow();
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    public ImportStats importFile(Path file, Lang lang) throws IOException {
+        return importFile(file, lang, ordered);
+    }
+
+    public ImportStats importFile(Path file, Lang lang, boolean ordered) throws IOException {
+        return importFile(file, lang, ordered, UUID.randomUUID());
+    }
+
+    // `blankNodeSeed` scopes the blank-node labels; parsing the file again with
+    // LabelToNode.createScopeByDocumentHash(blankNodeSeed) yields the same blank nodes
+    public ImportStats importFile(Path file, Lang lang, boolean ordered, UUID blankNodeSeed) throws IOException {
+        if (!Lang.NTRIPLES.equals(lang) && !Lang.NQUADS.equals(lang)) {
+            throw new IllegalArgumentException("Parallel import needs a line-based format (N-Triples, N-Quads), got " + lang.getName());
+        }
+        long t0 = System.currentTimeMillis();
+        ImportStats stats = new ImportStats();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> segments = segments(channel);
+            if (ordered) {
+                importOrdered(channel, segments, lang, blankNodeSeed, stats);
+            } else {
+                importUnordered(channel, segments, lang, blankNodeSeed, stats);
+            }
+        }
+        stats.addPhaseTime("total", System.currentTimeMillis() - t0);
+        metrics.recordImport("parallel", stats);
+        return stats;
+    }
+
+    private void importUnordered(FileChannel channel, List<long[]> segments, Lang lang, UUID seed, ImportStats stats) {
+        List<Future<ImportStats>> tasks = new ArrayList<>(segments.size());
+        for (long[] segment : segments) {
+            tasks.add(parsers.submit(() -> {
+                ImportStats segmentStats = new ImportStats();
+                Neo4jStreamSink sink = new Neo4jStreamSink(bulkWriter, segmentStats, chunkSize, RdfService::localName);
+                parse(channel, segment, lang, seed, sink, segmentStats);
+                return segmentStats;
+            }));
+        }
+        try {
+            for (Future<ImportStats> task : tasks) {
+                stats.merge(await(task));
+            }
+        } finally {
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private void importOrdered(FileChannel channel, List<long[]> segments, Lang lang, UUID seed, ImportStats stats) {
+        Semaphore parsedAhead = new Semaphore(2 * threads);
+        ImportStats writeStats = new ImportStats();
+        List<Future<ImportStats>> parsed = new ArrayList<>(segments.size());
+        CompletableFuture<Void> written = CompletableFuture.completedFuture(null);
+        try {
+            for (long[] segment : segments) {
+                parsedAhead.acquire();
+                CompletableFuture<ImportStats> segmentStats = new CompletableFuture<>();
+                CompletableFuture<List<RdfImportBatch>> chunks = CompletableFuture.supplyAsync(() -> {
+                    ImportStats s = new ImportStats();
+                    List<RdfImportBatch> batches = new ArrayList<>();
+                    parse(channel, segment, lang, seed, new Neo4jStreamSink(batches::add, s, chunkSize, RdfService::localName), s);
+                    segmentStats.complete(s);
+                    return batches;
+                }, parsers);
+                parsed.add(segmentStats);
+                // chained on the previous segment's write, so segments are written in file order
+                written = written.thenCombine(chunks, (v, batches) -> batches)
+                        .thenAcceptAsync(batches -> batches.forEach(batch -> bulkWriter.write(batch, writeStats)), writer)
+                        .whenComplete((v, e) -> parsedAhead.release());
+                if (written.isCompletedExceptionally()) break;
+            }
+            await(written);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } finally {
+            written.cancel(true);
+        }
+        for (Future<ImportStats> segmentStats : parsed) {
+            stats.merge(await(segmentStats));
+        }
+        stats.merge(writeStats);
+    }
+
+    private static void parse(FileChannel channel, long[] segment, Lang lang, UUID seed, Neo4jStreamSink sink, ImportStats stats) {
+        long t0 = System.currentTimeMillis();
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, segment[0], segment[1] - segment[0]);
+            // parse() calls finish() on the sink, which flushes (or hands off) the last chunk
+            RDFParser.source(new ByteBufferInputStream(buffer))
+                    .lang(lang)
+                    .labelToNode(LabelToNode.createScopeByDocumentHash(seed))
+                    .parse(sink);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot map bytes " + segment[0] + "-" + segment[1] + ": " + e.getMessage(), e);
+        } catch (RiotException e) {
+            // line numbers are relative to the segment
+            throw new IllegalArgumentException("Parse error in bytes " + segment[0] + "-" + segment[1] + ": " + e.getMessage(), e);
+        }
+        stats.addPhaseTime("parse", System.currentTimeMillis() - t0);
+    }
+
+    // [start, end) byte ranges of about segmentBytes, each ending just after a newline (or at EOF)
+    private List<long[]> segments(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> segments = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + segmentBytes);
+            while (end < size) {
+                probe.clear();
+                int n = channel.read(probe, end);
+                if (n <= 0) {
+                    end = size;
+                    break;
+                }
+                int nl = -1;
+                for (int i = 0; i < n; i++) {
+                    if (probe.get(i) == '\n') {
+                        nl = i;
+                        break;
+                    }
+                }
+                if (nl >= 0) {
+                    end += nl + 1;
+                    break;
+                }
+                end += n;
+            }
+            segments.add(new long[] { start, Math.min(end, size) });
+            start = end;
+        }
+        return segments;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Reads a (memory-mapped) buffer without copying it to the heap first
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
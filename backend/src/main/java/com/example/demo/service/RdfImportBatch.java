@@ -0,0 +1,205 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+// Accumulates the rows of one import, grouped the way Neo4jBulkWriter sends them:
+// node iris, iris per label, literal property rows and relationship rows per type.
+// Resources are held as TermDictionary ids: node and label sets are compressed bitmaps, property
+// and relationship rows are int columns, and the parameter maps Neo4j needs are only built
+// while a phase is written.
+// Literals are grouped into one property row per subject and key, holding all of its distinct
+// values (see LiteralCodec), so a multi-valued predicate becomes a list instead of the last
+// value winning. Relationship rows keep source order.
+public class RdfImportBatch {
+    private final TermDictionary terms;
+    private final RoaringBitmap nodes = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> labels = new LinkedHashMap<>();
+    private final IntList propertySubjects = new IntList();
+    private final List<String> propertyKeys = new ArrayList<>();
+    private final List<Node> propertyValues = new ArrayList<>();
+    // from, to pairs per type
+    private final Map<String, IntList> relationships = new LinkedHashMap<>();
+    private int size;
+
+    public RdfImportBatch(TermDictionary terms) {
+        this.terms = terms;
+    }
+
+    public TermDictionary getTerms() { return terms; }
+
+    public void addNode(int id) {
+        if (nodes.checkedAdd(id)) size++;
+    }
+
+    public void addLabel(int id, String label) {
+        RoaringBitmap ids = labels.get(label);
+        if (ids == null) {
+            ids = new RoaringBitmap();
+            labels.put(label, ids);
+        }
+        if (ids.checkedAdd(id)) size++;
+    }
+
+    public void addProperty(int id, String key, Node literal) {
+        propertySubjects.add(id);
+        propertyKeys.add(key);
+        propertyValues.add(literal);
+        size++;
+    }
+
+    public void addRelationship(int from, String type, int to) {
+        IntList pairs = relationships.get(type);
+        if (pairs == null) {
+            pairs = new IntList();
+            relationships.put(type, pairs);
+        }
+        pairs.add(from);
+        pairs.add(to);
+        size++;
+    }
+
+    // {iri} per node
+    public List<Map<String, Object>> getNodeRows() {
+        return iriRows(nodes.toArray());
+    }
+
+    // {iri} rows per label
+    public Map<String, List<Map<String, Object>>> getLabelRows() {
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        labels.forEach((label, ids) -> rows.put(label, iriRows(ids.toArray())));
+        return rows;
+    }
+
+    // {iri, p, vs, ds, ss} per subject and key: native values, sidecar entries and lexical forms
+    // of its distinct literals, in source order. Literals are distinct by stored value and
+    // datatype, not by lexical form: "1" and "01"^^xsd:integer both store 1, so they are one value
+    public List<Map<String, Object>> getPropertyRows() {
+        int count = propertySubjects.size();
+        // subject id in the high half, so sorting groups by subject and keeps source order within
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) propertySubjects.get(i) << 32) | i;
+        }
+        Arrays.sort(order);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<String, PropertyValues> byKey = new LinkedHashMap<>();
+        for (int from = 0; from < count; ) {
+            int subject = (int) (order[from] >>> 32);
+            int to = from;
+            byKey.clear();
+            for (; to < count && (int) (order[to] >>> 32) == subject; to++) {
+                int i = (int) order[to];
+                byKey.computeIfAbsent(propertyKeys.get(i), k -> new PropertyValues()).add(propertyValues.get(i));
+            }
+            for (Map.Entry<String, PropertyValues> e : byKey.entrySet()) {
+                Map<String, Object> row = new HashMap<>(8);
+                row.put("iri", terms.iri(subject));
+                row.put("p", e.getKey());
+                row.put("vs", e.getValue().values);
+                row.put("ds", e.getValue().datatypes);
+                row.put("ss", e.getValue().lexical);
+                rows.add(row);
+            }
+            from = to;
+        }
+        return rows;
+    }
+
+    // {a, b} rows per relationship type
+    public Map<String, List<Map<String, Object>>> getRelationshipRows() {
+        Map<String, List<Map<String, Object>>> rows = new LinkedHashMap<>();
+        relationships.forEach((type, pairs) -> rows.put(type, new Rows(pairs.size() / 2, i -> {
+            Map<String, Object> row = new HashMap<>(4);
+            row.put("a", terms.iri(pairs.get(2 * i)));
+            row.put("b", terms.iri(pairs.get(2 * i + 1)));
+            return row;
+        })));
+        return rows;
+    }
+
+    // Number of buffered rows across all phases
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    // Also clears the term dictionary, whose ids the rows refer to
+    public void clear() {
+        terms.clear();
+        nodes.clear();
+        labels.clear();
+        propertySubjects.clear();
+        propertyKeys.clear();
+        propertyValues.clear();
+        relationships.clear();
+        size = 0;
+    }
+
+    private List<Map<String, Object>> iriRows(int[] ids) {
+        return new Rows(ids.length, i -> Collections.singletonMap("iri", terms.iri(ids[i])));
+    }
+
+    // Read-only list whose rows are created on access
+    private static final class Rows extends AbstractList<Map<String, Object>> implements RandomAccess {
+        private final int size;
+        private final IntFunction<Map<String, Object>> row;
+
+        Rows(int size, IntFunction<Map<String, Object>> row) {
+            this.size = size;
+            this.row = row;
+        }
+
+        @Override
+        public Map<String, Object> get(int index) {
+            Objects.checkIndex(index, size);
+            return row.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Distinct stored values of one subject and key
+    private static final class PropertyValues {
+        final List<Object> values = new ArrayList<>(1);
+        final List<String> datatypes = new ArrayList<>(1);
+        final List<String> lexical = new ArrayList<>(1);
+        private final Set<List<Object>> seen = new HashSet<>(2);
+
+        void add(Node literal) {
+            Object value = LiteralCodec.value(literal);
+            String datatype = LiteralCodec.datatype(literal);
+            if (!seen.add(Arrays.asList(value, datatype))) return;
+            values.add(value);
+            datatypes.add(datatype);
+            lexical.add(LiteralCodec.lexical(value, datatype));
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -1,24 +1,129 @@
 package com.example.demo.service;
 
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RIOT;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.riot.lang.LabelToNode;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFLib;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocks;
+import org.apache.jena.riot.writer.WriterStreamRDFPlain;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.neo4j.driver.summary.QueryType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class RdfService {
+    // Label carried by every imported node; `iri` is unique for it (see Neo4jSchemaInitializer)
+    public static final String RESOURCE_LABEL = "Resource";
+
+    private static final int SNIFF_BYTES = 4096;
+    private static final String EXPORT_BASE = "http://example.org/ont#";
+    private static final String RDF_TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+    // how often the export writer checks whether a stalled reader has stopped
+    private static final long EXPORT_POLL_MS = 200;
+
     @Autowired
     private Neo4jClient neo4jClient;
 
+    @Autowired
+    private Neo4jBulkWriter bulkWriter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReasoningMetrics metrics;
+
+    @Autowired
+    private ParallelNTriplesImporter parallelImporter;
+
+    @Autowired
+    private Tdb2Store tdb2Store;
+
+    // Directory of staged N-Triples/N-Quads files for importStagedFile(); empty = disabled
+    @Value("${rdf.import.parallel.staging-dir:}")
+    private String stagingDir;
+
+    @Value("${rdf.import.stream-chunk-size:20000}")
+    private int streamChunkSize;
+
+    // Nodes per export page; at least 1 (checked at startup)
+    @Value("${rdf.export.page-size:5000}")
+    private int exportPageSize;
+
+    // Pages fetched ahead of the writer during export; 0 = fetch each page after writing the previous one
+    @Value("${rdf.export.prefetch-pages:2}")
+    private int exportPrefetchPages;
+
+    // Export page fetchers and concurrent graph-data queries
+    private ExecutorService readExecutor;
+
+    // Bumped whenever an import (or a write-back of inferences) changes the graph, so that
+    // snapshots derived from it (e.g. SparqlService) can tell they are out of date
+    private final AtomicLong graphVersion = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // a page of 0 rows never ends the keyset loop
+        if (exportPageSize < 1) {
+            throw new IllegalStateException("rdf.export.page-size must be at least 1, got " + exportPageSize);
+        }
+        AtomicInteger seq = new AtomicInteger();
+        readExecutor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "rdf-read-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readExecutor.shutdownNow();
+    }
+
+    public long getGraphVersion() {
+        return graphVersion.get();
+    }
+
+    public void markGraphChanged() {
+        graphVersion.incrementAndGet();
+    }
+
     // Helper: get local name from URI
-    private String localName(String uri) {
+    static String localName(String uri) {
         if (uri == null) return null;
         int idx = Math.max(uri.lastIndexOf('#'), uri.lastIndexOf('/'));
         if (idx >= 0 && idx + 1 < uri.length()) return uri.substring(idx + 1);
@@ -40,6 +145,10 @@ public class RdfService {
                 return Lang.NTRIPLES;
             } else if (contentType.contains("n3")) {
                 return Lang.N3;
+            } else if (contentType.contains("rdf+thrift")) {
+                return Lang.RDFTHRIFT;
+            } else if (contentType.contains("rdf+protobuf")) {
+                return Lang.RDFPROTO;
             }
         }
 
@@ -63,156 +172,451 @@ public class RdfService {
     }
 
     // Import RDF data into Neo4j: create nodes with property `iri`, set labels from rdf:type,
-    // set literal properties for literal objects and relationships for resource objects.
+    // set typed literal properties for literal objects (lists for several values, see
+    // LiteralCodec) and relationships for resource objects.
     // Supports multiple formats: Turtle, RDF/XML, JSON-LD, etc.
-    public void importRdf(String rdfContent, String contentType) {
+    // Statements are grouped into an RdfImportBatch and written with UNWIND batches.
+    public ImportStats importRdf(String rdfContent, String contentType) {
+        ImportStats stats = new ImportStats();
+        long t0 = System.currentTimeMillis();
         Model model = ModelFactory.createDefaultModel();
         ByteArrayInputStream in = new ByteArrayInputStream(rdfContent.getBytes(StandardCharsets.UTF_8));
         
         // Determine RDF format based on content-type or auto-detection
         Lang lang = detectRdfFormat(rdfContent, contentType);
         RDFDataMgr.read(model, in, lang);
-
-        // First pass: ensure nodes for all resources (subjects and resource objects)
-        Set<String> resourceUris = new HashSet<>();
-        Map<String, List<String>> typeMap = new HashMap<>();
-
-        StmtIterator sit = model.listStatements();
-        while (sit.hasNext()) {
-            Statement s = sit.next();
-            Resource subj = s.getSubject();
-            RDFNode obj = s.getObject();
-            if (subj.isURIResource()) resourceUris.add(subj.getURI());
-            else resourceUris.add("_bnode_" + subj.getId().getLabelString());
-
-            if (obj.isURIResource()) resourceUris.add(obj.asResource().getURI());
-
-            // collect rdf:type
-            if (s.getPredicate().getURI().equals("http://www.w3.org/1999/02/22-rdf-syntax-ns#type")) {
-                String subjId = subj.isURIResource() ? subj.getURI() : ("_bnode_" + subj.getId().getLabelString());
-                String typeUri = obj.isURIResource() ? obj.asResource().getURI() : obj.toString();
-                typeMap.computeIfAbsent(subjId, k -> new ArrayList<>()).add(typeUri);
-            }
+        stats.addPhaseTime("parse", System.currentTimeMillis() - t0);
+        importModel(model, stats);
+        if (tdb2Store.isEnabled()) {
+            long t2 = System.currentTimeMillis();
+            tdb2Store.add(model);
+            stats.addPhaseTime("tdb2", System.currentTimeMillis() - t2);
         }
+        metrics.recordImport("text", stats);
+        return stats;
+    }
 
-        // MERGE nodes
-        for (String uri : resourceUris) {
-            // Use `iri` property to store original identifier; for blank nodes use special string
-            neo4jClient.query("MERGE (n {iri: $iri}) RETURN n")
-                    .bind(uri).to("iri")
-                    .run();
-        }
+    // Import an in-memory model (e.g. a reasoning result) without serialising it to text first
+    public ImportStats importModel(Model model) {
+        ImportStats stats = new ImportStats();
+        importModel(model, stats);
+        metrics.recordImport("model", stats);
+        return stats;
+    }
+
+    private void importModel(Model model, ImportStats stats) {
+        long t1 = System.currentTimeMillis();
+        stats.addTriples(model.size());
+
+        TermDictionary terms = new TermDictionary(RdfService::localName);
+        RdfImportBatch batch = new RdfImportBatch(terms);
+        Graph graph = model.getGraph();
 
-        // Apply types as labels
-        for (Map.Entry<String, List<String>> e : typeMap.entrySet()) {
-            String subj = e.getKey();
-            for (String typeUri : e.getValue()) {
-                String label = localName(typeUri).replaceAll("[^A-Za-z0-9_]", "_");
-                // Add label to node (Neo4j labels cannot be set as properties)
-                String cy = String.format("MATCH (n {iri:$iri}) SET n:`%s`", label);
-                neo4jClient.query(cy).bind(subj).to("iri").run();
+        // First pass: ensure nodes for all resources (subjects and URI objects) and collect rdf:type
+        ExtendedIterator<Triple> it = graph.find();
+        while (it.hasNext()) {
+            Triple t = it.next();
+            Node obj = t.getObject();
+            int subjId = terms.id(t.getSubject());
+            batch.addNode(subjId);
+
+            if (obj.isURI()) batch.addNode(terms.id(obj));
+
+            if (RDF_TYPE.equals(t.getPredicate().getURI())) {
+                // Neo4j labels cannot be set as properties
+                batch.addLabel(subjId, terms.label(obj));
             }
         }
 
         // Second pass: handle properties and relationships
-        sit = model.listStatements();
-        while (sit.hasNext()) {
-            Statement s = sit.next();
-            Resource subj = s.getSubject();
-            RDFNode obj = s.getObject();
-            String subjId = subj.isURIResource() ? subj.getURI() : ("_bnode_" + subj.getId().getLabelString());
-            String predLocal = localName(s.getPredicate().getURI());
+        it = graph.find();
+        while (it.hasNext()) {
+            Triple t = it.next();
+            Node obj = t.getObject();
+            int subjId = terms.id(t.getSubject());
+            TermDictionary.Predicate predicate = terms.predicate(t.getPredicate());
 
             if (obj.isLiteral()) {
-                String lit = obj.asLiteral().getString();
-                // set property on subject
-                String cy = "MATCH (n {iri:$iri}) SET n[$p] = $v";
-                neo4jClient.query(cy).bind(subjId).to("iri").bind(predLocal).to("p").bind(lit).to("v").run();
-            } else if (obj.isURIResource() || obj.isResource()) {
-                String objId = obj.isURIResource() ? obj.asResource().getURI() : ("_bnode_" + obj.asResource().getId().getLabelString());
-                String relType = predLocal.toUpperCase();
-                String cy = "MATCH (a {iri:$a}), (b {iri:$b}) MERGE (a)-[r:`" + relType + "`]->(b)";
-                neo4jClient.query(cy).bind(subjId).to("a").bind(objId).to("b").run();
+                batch.addProperty(subjId, predicate.getKey(), obj);
+            } else {
+                batch.addRelationship(subjId, predicate.getRelationshipType(), terms.id(obj));
             }
         }
+        stats.addPhaseTime("collect", System.currentTimeMillis() - t1);
+
+        bulkWriter.write(batch, stats);
+        markGraphChanged();
+    }
+
+    // Streaming import: the parser feeds a Neo4jStreamSink directly from the input stream and
+    // rows are flushed to Neo4j in chunks of `rdf.import.stream-chunk-size`, so neither the
+    // payload nor a Jena Model is ever held in memory. The format comes from the content-type,
+    // falling back to sniffing the first bytes of the stream.
+    // With the TDB2 store enabled the body is spooled to a temporary file first and bulk-loaded
+    // into TDB2 after the Neo4j import, so the loader only ever sees data that parsed completely.
+    public ImportStats importRdfStream(InputStream input, String contentType) throws IOException {
+        ImportStats stats = new ImportStats();
+        long t0 = System.currentTimeMillis();
+        BufferedInputStream in = new BufferedInputStream(input, SNIFF_BYTES);
+        in.mark(SNIFF_BYTES);
+        byte[] head = in.readNBytes(SNIFF_BYTES);
+        in.reset();
+        Lang lang = detectRdfFormat(new String(head, StandardCharsets.UTF_8), contentType);
+
+        Neo4jStreamSink sink = new Neo4jStreamSink(bulkWriter, stats, streamChunkSize, RdfService::localName);
+        Path spool = null;
+        try {
+            if (tdb2Store.isEnabled()) {
+                spool = Files.createTempFile("rdf-import-", "." + lang.getFileExtensions().get(0));
+                long t1 = System.currentTimeMillis();
+                Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+                stats.addPhaseTime("spool", System.currentTimeMillis() - t1);
+                UUID blankNodeSeed = UUID.randomUUID();
+                RDFParser.source(spool).lang(lang)
+                        .labelToNode(LabelToNode.createScopeByDocumentHash(blankNodeSeed))
+                        .parse(sink);
+                mirrorFile(spool, lang, blankNodeSeed, stats);
+            } else {
+                RDFParser.source(in).lang(lang).parse(sink);
+            }
+        } finally {
+            // chunks flushed before a parse error are in the graph
+            markGraphChanged();
+            if (spool != null) Files.deleteIfExists(spool);
+        }
+        stats.addPhaseTime("total", System.currentTimeMillis() - t0);
+        metrics.recordImport("stream", stats);
+        return stats;
+    }
+
+    // Parallel import of an N-Triples / N-Quads upload: the body is spooled to a temporary file,
+    // which ParallelNTriplesImporter memory-maps and parses on several threads.
+    public ImportStats importParallel(InputStream input, String contentType) throws IOException {
+        Lang lang = contentType != null && contentType.toLowerCase().contains("n-quads") ? Lang.NQUADS : Lang.NTRIPLES;
+        Path spool = Files.createTempFile("rdf-import-", Lang.NQUADS.equals(lang) ? ".nq" : ".nt");
+        try {
+            long t0 = System.currentTimeMillis();
+            Files.copy(input, spool, StandardCopyOption.REPLACE_EXISTING);
+            long spooled = System.currentTimeMillis() - t0;
+            ImportStats stats = importFile(spool, lang);
+            stats.addPhaseTime("spool", spooled);
+            return stats;
+        } finally {
+            markGraphChanged();
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    // Parallel import of a file already staged on the server (e.g. the nightly catalogue dump),
+    // given by its name relative to `rdf.import.parallel.staging-dir`; *.nq is read as N-Quads.
+    public ImportStats importStagedFile(String name) throws IOException {
+        if (stagingDir == null || stagingDir.isEmpty()) {
+            throw new IllegalStateException("Staged imports are disabled (rdf.import.parallel.staging-dir is not set)");
+        }
+        Path dir = Paths.get(stagingDir).toAbsolutePath().normalize();
+        Path file = dir.resolve(name).normalize();
+        if (!file.startsWith(dir) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No staged file: " + name);
+        }
+        String fileName = file.getFileName().toString().toLowerCase();
+        Lang lang = fileName.endsWith(".nq") || fileName.endsWith(".nquads") ? Lang.NQUADS : Lang.NTRIPLES;
+        try {
+            return importFile(file, lang);
+        } finally {
+            markGraphChanged();
+        }
+    }
+
+    // Parallel import into Neo4j, then the same file into the TDB2 store
+    private ImportStats importFile(Path file, Lang lang) throws IOException {
+        UUID blankNodeSeed = UUID.randomUUID();
+        ImportStats stats = parallelImporter.importFile(file, lang, parallelImporter.isOrdered(), blankNodeSeed);
+        mirrorFile(file, lang, blankNodeSeed, stats);
+        return stats;
+    }
+
+    // Bulk-load a file that has already been imported into Neo4j into the TDB2 store (if enabled).
+    // Both parses scope blank-node labels with the same seed, so they agree on blank nodes.
+    private void mirrorFile(Path file, Lang lang, UUID blankNodeSeed, ImportStats stats) {
+        if (!tdb2Store.isEnabled()) return;
+        long t0 = System.currentTimeMillis();
+        tdb2Store.bulkLoad(tdb2 -> RDFParser.source(file).lang(lang)
+                .labelToNode(LabelToNode.createScopeByDocumentHash(blankNodeSeed))
+                .parse(tdb2));
+        stats.addPhaseTime("tdb2", System.currentTimeMillis() - t0);
+    }
+
+    // Seed the TDB2 store with the asserted triples in Neo4j, e.g. when it is enabled on an
+    // existing graph and so far only holds the imports made since
+    public void seedTdb2() {
+        tdb2Store.seed(tdb2 -> {
+            tdb2.start();
+            exportTo(tdb2, GraphSelection.all(), true, () -> {});
+            tdb2.finish();
+        });
     }
 
     // Export Neo4j data to Turtle (simple mapping)
     public String exportToTurtle() {
+        Model model = loadModel(GraphSelection.all(), false);
+
+        // Serialize to Turtle
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RDFDataMgr.write(out, model, Lang.TURTLE);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // Load (part of) the graph straight into a Jena Model, e.g. as reasoning input, without a
+    // text round trip. assertedOnly leaves out facts written back by incremental reasoning.
+    public Model loadModel(GraphSelection selection, boolean assertedOnly) {
         Model model = ModelFactory.createDefaultModel();
-        String base = "http://example.org/ont#";
+        model.setNsPrefix("ont", EXPORT_BASE);
+        StreamRDF sink = StreamRDFLib.graph(model.getGraph());
+        if (selection.isCustomCypher()) {
+            // user-supplied Cypher may only read: checked with EXPLAIN and run in a read-only
+            // transaction, once; its nodes are then paged over by iri
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            List<String> iris = tx.execute(status -> selectIris(selection));
+            exportIris(sink, iris == null ? Collections.emptyList() : iris, assertedOnly);
+        } else {
+            exportTo(sink, selection, assertedOnly, () -> {});
+        }
+        return model;
+    }
+
+    // Number of imported nodes (served from Neo4j's count store)
+    public long countResources() {
+        return neo4jClient.query("MATCH (n:" + RESOURCE_LABEL + ") RETURN count(n) AS c")
+                .fetchAs(Long.class).one().orElse(0L);
+    }
+
+    // Streaming export: pages are written to `out` as soon as they are fetched, so memory stays
+    // at one page and the first triples reach the client before the rest of the graph is read.
+    // Lang.NTRIPLES writes one triple per line, Lang.RDFTHRIFT / Lang.RDFPROTO write Jena's
+    // binary encodings; anything else writes streaming Turtle (blocks).
+    public void exportStream(OutputStream out, Lang lang) {
+        long t0 = System.nanoTime();
+        String format;
+        if (Lang.RDFTHRIFT.equals(lang) || Lang.RDFPROTO.equals(lang)) {
+            StreamRDF writer = StreamRDFWriter.getWriterStream(out, lang);
+            writer.start();
+            exportTo(writer, GraphSelection.all(), false, () -> flush(out));
+            writer.finish();
+            flush(out);
+            format = Lang.RDFTHRIFT.equals(lang) ? "thrift" : "protobuf";
+        } else {
+            IndentedWriter w = new IndentedWriter(out);
+            StreamRDF writer = Lang.NTRIPLES.equals(lang)
+                    ? new WriterStreamRDFPlain(w)
+                    : new WriterStreamRDFBlocks(w, RIOT.getContext());
+            writer.start();
+            writer.prefix("ont", EXPORT_BASE);
+            writer.prefix("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+            exportTo(writer, GraphSelection.all(), false, w::flush);
+            writer.finish();
+            w.flush();
+            format = Lang.NTRIPLES.equals(lang) ? "n-triples" : "turtle";
+        }
+        metrics.recordExport(format, System.nanoTime() - t0);
+    }
+
+    private static void flush(OutputStream out) {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Export all :Resource nodes and their outgoing relationships into `sink`.
+    public void exportTo(StreamRDF sink) {
+        exportTo(sink, GraphSelection.all(), false, () -> {});
+    }
+
+    // Keyset pagination on the indexed `iri`: each page fetches `rdf.export.page-size` nodes
+    // together with their outgoing relationships, then `afterPage` runs (e.g. to flush output).
+    // Pages are fetched on a reader thread up to `rdf.export.prefetch-pages` ahead, so the next
+    // round trip overlaps with writing the current page; the bounded queue holds the reader back
+    // when the client reads slowly.
+    private void exportTo(StreamRDF sink, GraphSelection selection, boolean assertedOnly, Runnable afterPage) {
+        String cy = pageQuery(selection.matchClause(RESOURCE_LABEL), assertedOnly);
+        if (exportPrefetchPages <= 0) {
+            String after = "";
+            while (true) {
+                List<Map<String, Object>> rows = fetchPage(cy, selection, after);
+                writePage(rows, sink, assertedOnly);
+                afterPage.run();
+                if (rows.size() < exportPageSize) return;
+                after = rows.get(rows.size() - 1).get("iri").toString();
+            }
+        }
+
+        // The reader's failure (any Throwable) stays in its Future: the writer polls the queue and,
+        // when it is empty and the reader has stopped, rethrows it instead of waiting forever
+        BlockingQueue<List<Map<String, Object>>> pages = new ArrayBlockingQueue<>(exportPrefetchPages);
+        Future<?> reader = readExecutor.submit(() -> {
+            String after = "";
+            while (true) {
+                List<Map<String, Object>> rows = fetchPage(cy, selection, after);
+                try {
+                    pages.put(rows);
+                } catch (InterruptedException e) {
+                    // the writer gave up (finished, failed or client gone)
+                    return;
+                }
+                if (rows.size() < exportPageSize) return;
+                after = rows.get(rows.size() - 1).get("iri").toString();
+            }
+        });
+        try {
+            while (true) {
+                List<Map<String, Object>> rows = pages.poll(EXPORT_POLL_MS, TimeUnit.MILLISECONDS);
+                if (rows == null) {
+                    if (!reader.isDone()) continue;
+                    // the reader may have queued its last page just before it finished
+                    rows = pages.poll();
+                    if (rows == null) throw readerFailure(reader);
+                }
+                writePage(rows, sink, assertedOnly);
+                afterPage.run();
+                if (rows.size() < exportPageSize) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        } finally {
+            reader.cancel(true);
+        }
+    }
+
+    // Why a reader stopped without queuing its last page
+    private static RuntimeException readerFailure(Future<?> reader) throws InterruptedException {
+        try {
+            reader.get();
+            return new IllegalStateException("Export reader stopped before the last page");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) return (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            return new IllegalStateException("Export reader failed", cause);
+        }
+    }
 
-        // Fetch nodes
-        Collection<Map<String, Object>> nodes = neo4jClient.query("MATCH (n) RETURN n.iri as iri, labels(n) as labels, properties(n) as props")
-            .fetch().all();
+    // Nodes bound by `match`, up to $limit of them, with their outgoing relationships
+    private static String pageQuery(String match, boolean assertedOnly) {
+        return match
+                + "WITH n ORDER BY n.iri LIMIT $limit "
+                + "OPTIONAL MATCH (n)-[r]->(b:" + RESOURCE_LABEL + ") "
+                + (assertedOnly ? "WHERE r.inferred IS NULL " : "")
+                + "WITH n, collect([type(r), b.iri]) AS rels "
+                + "RETURN n.iri AS iri, labels(n) AS labels, properties(n) AS props, rels ORDER BY iri";
+    }
 
-        Map<String, org.apache.jena.rdf.model.Resource> nodeMap = new HashMap<>();
+    // Iris selected by custom Cypher, which must be read-only: EXPLAIN reports the query type
+    // without running it
+    private List<String> selectIris(GraphSelection selection) {
+        QueryType type = neo4jClient.query("EXPLAIN " + selection.getCypher()).run().queryType();
+        if (type != QueryType.READ_ONLY) {
+            throw new IllegalArgumentException("Custom Cypher must be read-only (query type " + type + ")");
+        }
+        return new ArrayList<>(neo4jClient.query(selection.selectQuery(RESOURCE_LABEL))
+                .fetchAs(String.class).all());
+    }
 
-        for (Map<String, Object> row : nodes) {
-            Object iriObj = row.get("iri");
-            if (iriObj == null) continue;
-            String iri = iriObj.toString();
-            org.apache.jena.rdf.model.Resource subj = iri.startsWith("_bnode_") ? model.createResource() : model.createResource(iri);
-            nodeMap.put(iri, subj);
+    // Export the nodes with the given iris, a page of the list per round trip
+    private void exportIris(StreamRDF sink, List<String> iris, boolean assertedOnly) {
+        String cy = pageQuery("UNWIND $iris AS i MATCH (n:" + RESOURCE_LABEL + " {iri: i}) ", assertedOnly);
+        for (int from = 0; from < iris.size(); from += exportPageSize) {
+            List<String> page = iris.subList(from, Math.min(iris.size(), from + exportPageSize));
+            writePage(new ArrayList<>(neo4jClient.query(cy)
+                    .bind(page).to("iris")
+                    .bind(exportPageSize).to("limit")
+                    .fetch().all()), sink, assertedOnly);
+        }
+    }
+
+    private List<Map<String, Object>> fetchPage(String cy, GraphSelection selection, String after) {
+        return new ArrayList<>(neo4jClient.query(cy)
+                .bindAll(selection.parameters())
+                .bind(after).to("after")
+                .bind(exportPageSize).to("limit")
+                .fetch().all());
+    }
+
+    private void writePage(List<Map<String, Object>> rows, StreamRDF sink, boolean assertedOnly) {
+        Node rdfType = NodeFactory.createURI(RDF_TYPE);
+        for (Map<String, Object> row : rows) {
+            String iri = row.get("iri").toString();
+            Node subj = exportNode(iri);
 
             // types: labels
             Object labelsObj = row.get("labels");
             if (labelsObj instanceof Collection) {
                 for (Object lab : (Collection<?>) labelsObj) {
                     String label = lab.toString();
+                    // the common import label is not an rdf:type
+                    if (label.equals(RESOURCE_LABEL)) continue;
                     // create rdf:type triple using base + label
-                    org.apache.jena.rdf.model.Resource typeRes = model.createResource(base + label);
-                    model.add(subj, model.createProperty("http://www.w3.org/1999/02/22-rdf-syntax-ns#type"), typeRes);
+                    sink.triple(Triple.create(subj, rdfType, NodeFactory.createURI(EXPORT_BASE + label)));
                 }
             }
 
             // properties
             Object propsObj = row.get("props");
             if (propsObj instanceof Map) {
-                Map<?,?> props = (Map<?,?>) propsObj;
-                for (Map.Entry<?,?> pe : props.entrySet()) {
+                Map<?, ?> props = (Map<?, ?>) propsObj;
+                for (Map.Entry<?, ?> pe : props.entrySet()) {
                     String key = pe.getKey().toString();
                     if (key.equals("iri")) continue;
+                    // provenance and datatype sidecars are metadata, not data
+                    if (key.endsWith(InferenceWriter.PROV_SUFFIX) || key.endsWith(LiteralCodec.DATATYPE_SUFFIX)) continue;
+                    if (assertedOnly && props.containsKey(key + InferenceWriter.PROV_SUFFIX)) continue;
                     Object val = pe.getValue();
                     if (val == null) continue;
-                    model.add(subj, model.createProperty(base + key), model.createLiteral(val.toString()));
+                    // typed literals again, one triple per value of a list property
+                    Node pred = NodeFactory.createURI(EXPORT_BASE + key);
+                    for (Node literal : LiteralCodec.literals(val, props.get(key + LiteralCodec.DATATYPE_SUFFIX))) {
+                        sink.triple(Triple.create(subj, pred, literal));
+                    }
                 }
             }
-        }
 
-        // Fetch relationships
-        Collection<Map<String, Object>> rels = neo4jClient.query("MATCH (a)-[r]->(b) RETURN a.iri as a, type(r) as t, b.iri as b")
-            .fetch().all();
-
-        for (Map<String, Object> row : rels) {
-            Object aobj = row.get("a");
-            Object bobj = row.get("b");
-            Object tobj = row.get("t");
-            if (aobj == null || bobj == null || tobj == null) continue;
-            String a = aobj.toString();
-            String b = bobj.toString();
-            String t = tobj.toString();
-            org.apache.jena.rdf.model.Resource sa = nodeMap.get(a);
-            org.apache.jena.rdf.model.Resource sb = nodeMap.get(b);
-            if (sa == null) sa = a.startsWith("_bnode_") ? model.createResource() : model.createResource(a);
-            if (sb == null) sb = b.startsWith("_bnode_") ? model.createResource() : model.createResource(b);
-            model.add(sa, model.createProperty(base + t), sb);
+            // outgoing relationships; OPTIONAL MATCH yields [null, null] for nodes without any
+            Object relsObj = row.get("rels");
+            if (relsObj instanceof Collection) {
+                for (Object rel : (Collection<?>) relsObj) {
+                    List<?> pair = (List<?>) rel;
+                    if (pair.get(0) == null || pair.get(1) == null) continue;
+                    sink.triple(Triple.create(subj, NodeFactory.createURI(EXPORT_BASE + pair.get(0)), exportNode(pair.get(1).toString())));
+                }
+            }
         }
+    }
 
-        // Serialize to Turtle
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        RDFDataMgr.write(out, model, Lang.TURTLE);
-        return out.toString(StandardCharsets.UTF_8);
+    // Blank nodes keep their import label so that references across pages stay consistent
+    private Node exportNode(String iri) {
+        return iri.startsWith("_bnode_")
+                ? NodeFactory.createBlankNode(iri.substring("_bnode_".length()))
+                : NodeFactory.createURI(iri);
     }
 
-    // Get graph data for visualization
+    // Get graph data for visualization: the first 500 nodes by id and the relationships among
+    // them (see GraphViewService for paged access to the whole graph)
     public Map<String, Object> getGraphData() {
         Map<String, Object> result = new HashMap<>();
         
+        // Nodes and relationships are fetched concurrently
+        CompletableFuture<Collection<Map<String, Object>>> relQuery = CompletableFuture.supplyAsync(() -> neo4jClient.query(
+            "MATCH (n) WITH n ORDER BY id(n) LIMIT 500 WITH collect(n) AS ns "
+            + "UNWIND ns AS a MATCH (a)-[r]->(b) WHERE b IN ns "
+            + "RETURN a.iri as source, b.iri as target, type(r) as type, id(a) as sourceId, id(b) as targetId LIMIT 1000"
+        ).fetch().all(), readExecutor);
+
         // Fetch nodes with their properties and labels
         List<Map<String, Object>> nodes = new ArrayList<>();
         Collection<Map<String, Object>> nodeRows = neo4jClient.query(
-            "MATCH (n) RETURN id(n) as id, n.iri as iri, labels(n) as labels, properties(n) as properties LIMIT 500"
+            "MATCH (n) RETURN id(n) as id, n.iri as iri, labels(n) as labels, properties(n) as properties ORDER BY id(n) LIMIT 500"
         ).fetch().all();
         
         for (Map<String, Object> row : nodeRows) {
@@ -225,9 +629,13 @@ public class RdfService {
         
         // Fetch relationships
         List<Map<String, Object>> relationships = new ArrayList<>();
-        Collection<Map<String, Object>> relRows = neo4jClient.query(
-            "MATCH (a)-[r]->(b) RETURN a.iri as source, b.iri as target, type(r) as type, id(a) as sourceId, id(b) as targetId LIMIT 1000"
-        ).fetch().all();
+        Collection<Map<String, Object>> relRows;
+        try {
+            relRows = relQuery.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
         
         for (Map<String, Object> row : relRows) {
             Map<String, Object> rel = new HashMap<>();
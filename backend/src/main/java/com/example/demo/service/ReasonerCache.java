@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.reasoner.Reasoner;
+import org.apache.jena.reasoner.ReasonerRegistry;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 已编译推理器缓存
+ * 以 (规则文本 SHA-256, 推理器类型, 规则引擎配置) 为键缓存解析后的规则和推理器，LRU 淘汰，
+ * 相同规则集的重复请求不再重复 Rule.parseRules 和构建 GenericRuleReasoner
+ * 已绑定命名本体的推理器也在同一 LRU 中，键另加本体内容指纹，本体重新注册后旧条目不再命中并随 LRU 淘汰
+ */
+@Component
+public class ReasonerCache {
+
+    @Autowired
+    private ReasoningMetrics metrics;
+
+    @Value("${reasoning.cache.max-entries:64}")
+    private int maxEntries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /** access-order LinkedHashMap 实现 LRU；所有访问都在 synchronized (entries) 内 */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > Math.max(1, maxEntries)) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * 缓存条目：解析后的规则、实际使用的引擎配置（仅 CUSTOM）和对应推理器；
+     * 已绑定本体的条目另有本体自身的推理闭包
+     */
+    public static class Entry {
+        private final List<Rule> rules;
+        private final RuleEngineConfig engine;
+        private final Reasoner reasoner;
+        private final List<Triple> schemaClosure;
+
+        Entry(List<Rule> rules, RuleEngineConfig engine, Reasoner reasoner) {
+            this(rules, engine, reasoner, Collections.emptyList());
+        }
+
+        Entry(List<Rule> rules, RuleEngineConfig engine, Reasoner reasoner, List<Triple> schemaClosure) {
+            this.rules = rules;
+            this.engine = engine;
+            this.reasoner = reasoner;
+            this.schemaClosure = schemaClosure;
+        }
+
+        public List<Rule> getRules() { return rules; }
+        public RuleEngineConfig getEngine() { return engine; }
+        public Reasoner getReasoner() { return reasoner; }
+
+        /**
+         * 绑定的本体在没有实例数据时的全部结论（本体三元组及其推理结果）；未绑定本体时为空
+         */
+        public List<Triple> getSchemaClosure() { return schemaClosure; }
+    }
+
+    /**
+     * 获取（必要时创建）推理器，CUSTOM 规则按 AUTO 模式选择引擎
+     */
+    public Reasoner getReasoner(ReasonerType type, String customRules) {
+        return getEntry(type, customRules, null).getReasoner();
+    }
+
+    /**
+     * 获取（必要时创建）推理器
+     * 
+     * @param engine CUSTOM 推理器的引擎配置，为空时按 AUTO 处理；其他推理器类型忽略
+     */
+    public Reasoner getReasoner(ReasonerType type, String customRules, RuleEngineConfig engine) {
+        return getEntry(type, customRules, engine).getReasoner();
+    }
+
+    public Entry getEntry(ReasonerType type, String customRules) {
+        return getEntry(type, customRules, null);
+    }
+
+    /**
+     * 获取缓存条目；解析在锁外进行，并发首次请求可能重复解析，但只保留一份
+     */
+    public Entry getEntry(ReasonerType type, String customRules, RuleEngineConfig engine) {
+        RuleEngineConfig config = RuleEngineConfig.orDefault(engine);
+        return entry(key(type, customRules, config), () -> create(type, customRules, config));
+    }
+
+    /**
+     * 获取已绑定本体的缓存条目
+     *
+     * @param fingerprint 本体内容指纹，与 schema 对应；内容改变后使用新的条目
+     */
+    public Entry getBoundEntry(String fingerprint, Model schema, ReasonerType type, String customRules, RuleEngineConfig engine) {
+        RuleEngineConfig config = RuleEngineConfig.orDefault(engine);
+        return entry(key(type, customRules, config) + "@" + fingerprint,
+            () -> bind(getEntry(type, customRules, config), schema));
+    }
+
+    private Entry entry(String key, Supplier<Entry> create) {
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits.incrementAndGet();
+                return e;
+            }
+        }
+        misses.incrementAndGet();
+        Entry created = create.get();
+        synchronized (entries) {
+            Entry existing = entries.putIfAbsent(key, created);
+            return existing != null ? existing : created;
+        }
+    }
+
+    /**
+     * 使某个规则集对应的条目失效（如规则文件被修改）
+     */
+    public void invalidate(ReasonerType type, String customRules) {
+        // CUSTOM 规则集的所有引擎配置一并失效
+        String key = key(type, customRules, RuleEngineConfig.auto());
+        String rulesPrefix = key.substring(0, key.indexOf('|') + 1);
+        synchronized (entries) {
+            entries.keySet().removeIf(k -> rulesPrefix.isEmpty() ? k.equals(key) : k.startsWith(rulesPrefix));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * 缓存统计：命中、未命中、淘汰次数及当前大小
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        long total = hits.get() + misses.get();
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits.get() / total);
+        return stats;
+    }
+
+    private Entry create(ReasonerType type, String customRules, RuleEngineConfig engine) {
+        switch (type) {
+            case RDFS:
+                return new Entry(null, null, ReasonerRegistry.getRDFSReasoner());
+            case OWL:
+                return new Entry(null, null, ReasonerRegistry.getOWLReasoner());
+            case OWL_MINI:
+                return new Entry(null, null, ReasonerRegistry.getOWLMiniReasoner());
+            case OWL_MICRO:
+                return new Entry(null, null, ReasonerRegistry.getOWLMicroReasoner());
+            case CUSTOM:
+                if (customRules == null || customRules.trim().isEmpty()) {
+                    throw new IllegalArgumentException("Custom rules are required for CUSTOM reasoner type");
+                }
+                List<Rule> rules = Collections.unmodifiableList(Rule.parseRules(customRules));
+                RuleEngineConfig resolved = engine.resolve(rules);
+                // 推理器使用加入触发计数的规则副本，条目中保留原始规则
+                return new Entry(rules, resolved, resolved.createReasoner(metrics.instrument(rules)));
+            default:
+                throw new IllegalArgumentException("Unknown reasoner type: " + type);
+        }
+    }
+
+    private static Entry bind(Entry unbound, Model schema) {
+        Reasoner reasoner = unbound.getReasoner().bindSchema(schema);
+        List<Triple> closure = ModelFactory.createInfModel(reasoner, ModelFactory.createDefaultModel()).getGraph().find().toList();
+        return new Entry(unbound.getRules(), unbound.getEngine(), reasoner, Collections.unmodifiableList(closure));
+    }
+
+    private static String key(ReasonerType type, String customRules, RuleEngineConfig engine) {
+        // 内置推理器与规则文本、引擎配置无关
+        if (type != ReasonerType.CUSTOM) return type.name();
+        return type.name() + ":" + sha256(customRules == null ? "" : customRules) + "|" + engine.key();
+    }
+
+    /**
+     * 规则文本的 SHA-256（十六进制）
+     */
+    public static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 异步推理任务
+ * 保存任务状态、当前阶段、结果或错误信息；结果只在任务成功后可取
+ */
+public class ReasoningJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        QUEUED,     // 排队中
+        RUNNING,    // 执行中
+        SUCCEEDED,  // 成功
+        FAILED,     // 失败
+        CANCELLED,  // 已取消
+        TIMED_OUT   // 超时
+    }
+
+    private final String id;
+    private final long estimatedBytes;
+    private final long timeoutMillis;
+    private final long submittedAt = System.currentTimeMillis();
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile String phase = "queued";
+    private volatile Map<String, Object> result;
+    private volatile String error;
+    private volatile Future<?> future;
+    /** 已请求的结束状态（超时/取消）及错误信息；工作线程实际退出后才生效 */
+    private Status stopStatus;
+    private String stopError;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public ReasoningJob(String id, long estimatedBytes, long timeoutMillis) {
+        this.id = id;
+        this.estimatedBytes = estimatedBytes;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String getId() { return id; }
+    public long getEstimatedBytes() { return estimatedBytes; }
+    public long getTimeoutMillis() { return timeoutMillis; }
+    public long getSubmittedAt() { return submittedAt; }
+    public long getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getPhase() { return phase; }
+    public Map<String, Object> getResult() { return result; }
+    public String getError() { return error; }
+
+    /**
+     * 由任务代码更新当前阶段（如 loading、reasoning、saving）
+     */
+    public void setPhase(String phase) { this.phase = phase; }
+
+    void setFuture(Future<?> future) { this.future = future; }
+    Future<?> getFuture() { return future; }
+
+    /** 内存预留只释放一次：返回 true 表示本次调用负责释放 */
+    boolean markReleased() { return released.compareAndSet(false, true); }
+
+    synchronized boolean start() {
+        if (status != Status.QUEUED) return false;
+        status = Status.RUNNING;
+        phase = "running";
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * 请求停止执行中的任务（超时/取消）：状态保持 RUNNING，直到工作线程退出后以 finalStatus 结束
+     *
+     * @return true 表示本次调用发起了停止，调用方应中断工作线程
+     */
+    synchronized boolean requestStop(Status finalStatus, String error) {
+        if (status != Status.RUNNING || stopStatus != null) return false;
+        stopStatus = finalStatus;
+        stopError = error;
+        phase = finalStatus == Status.TIMED_OUT ? "timing_out" : "cancelling";
+        return true;
+    }
+
+    /**
+     * 取消排队中的任务（立即结束）
+     */
+    synchronized boolean cancelQueued() {
+        return status == Status.QUEUED && finish(Status.CANCELLED, null, "Cancelled");
+    }
+
+    /**
+     * 工作线程退出时结束任务；已请求停止时以请求的状态结束
+     */
+    synchronized boolean complete(Status finalStatus, Map<String, Object> result, String error) {
+        if (stopStatus != null) return finish(stopStatus, null, stopError);
+        return finish(finalStatus, result, error);
+    }
+
+    /**
+     * 结束任务；已结束的任务不再改变状态
+     */
+    synchronized boolean finish(Status finalStatus, Map<String, Object> result, String error) {
+        if (isDone()) return false;
+        this.status = finalStatus;
+        this.result = result;
+        this.error = error;
+        this.phase = finalStatus.name().toLowerCase();
+        this.finishedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    public boolean wasStarted() {
+        return startedAt > 0;
+    }
+
+    public boolean isDone() {
+        return status != Status.QUEUED && status != Status.RUNNING;
+    }
+
+    /**
+     * 任务状态摘要（不含结果数据）
+     */
+    public Map<String, Object> toStatusMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("jobId", id);
+        m.put("status", status.name());
+        m.put("phase", phase);
+        m.put("estimatedBytes", estimatedBytes);
+        m.put("timeoutMillis", timeoutMillis);
+        m.put("submittedAt", submittedAt);
+        if (startedAt > 0) m.put("startedAt", startedAt);
+        if (finishedAt > 0) m.put("finishedAt", finishedAt);
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        m.put("elapsedMillis", (startedAt > 0 ? end - startedAt : 0));
+        if (error != null) m.put("error", error);
+        return m;
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 异步推理任务服务
+ * 推理任务在独立的有界线程池中执行，不占用 Tomcat 请求线程；
+ * 队列满时拒绝提交，按输入大小估算内存并在超出预算时拒绝，超时/取消时中断工作线程
+ * （推理输入经 InterruptibleGraph 包装，Jena 引擎会在下次访问数据时结束），
+ * 工作线程实际退出后任务才报告 TIMED_OUT / CANCELLED
+ */
+@Service
+public class ReasoningJobService {
+
+    /** 各推理器每个输入字节的内存放大系数（解析模型 + 推理图 + 结果），经验值 */
+    private static final Map<ReasonerType, Integer> MEMORY_FACTOR = new EnumMap<>(ReasonerType.class);
+    static {
+        MEMORY_FACTOR.put(ReasonerType.CUSTOM, 15);
+        MEMORY_FACTOR.put(ReasonerType.RDFS, 20);
+        MEMORY_FACTOR.put(ReasonerType.OWL_MICRO, 30);
+        MEMORY_FACTOR.put(ReasonerType.OWL_MINI, 40);
+        MEMORY_FACTOR.put(ReasonerType.OWL, 60);
+    }
+
+    @Value("${reasoning.jobs.workers:2}")
+    private int workers;
+
+    @Value("${reasoning.jobs.queue-capacity:16}")
+    private int queueCapacity;
+
+    @Value("${reasoning.jobs.default-timeout-seconds:300}")
+    private long defaultTimeoutSeconds;
+
+    @Value("${reasoning.jobs.max-timeout-seconds:1800}")
+    private long maxTimeoutSeconds;
+
+    /** 所有未结束任务的内存预算；0 表示最大堆的一半 */
+    @Value("${reasoning.jobs.max-estimated-bytes:0}")
+    private long maxEstimatedBytes;
+
+    @Value("${reasoning.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService timer;
+    private final Map<String, ReasoningJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            r -> {
+                Thread t = new Thread(r, "reasoning-job-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reasoning-job-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("reasoning.jobs.running", this, ReasoningJobService::getRunningCount)
+            .description("Reasoning jobs currently executing")
+            .register(meterRegistry);
+        Gauge.builder("reasoning.jobs.queued", this, ReasoningJobService::getQueuedCount)
+            .description("Reasoning jobs waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("reasoning.jobs.reserved.bytes", reservedBytes, AtomicLong::get)
+            .description("Estimated memory reserved by unfinished reasoning jobs")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * 估算推理任务内存（字节）
+     */
+    public long estimateBytes(long inputBytes, ReasonerType type) {
+        return inputBytes * MEMORY_FACTOR.getOrDefault(type, 60);
+    }
+
+    /**
+     * 提交任务
+     * 
+     * @param task 任务代码，可通过 ReasoningJob.setPhase 报告进度
+     * @param timeoutSeconds 超时秒数，为空时使用默认值
+     * @throws IllegalArgumentException 估算内存超出预算
+     * @throws RejectedExecutionException 队列已满
+     */
+    public ReasoningJob submit(Function<ReasoningJob, Map<String, Object>> task, long estimatedBytes, Long timeoutSeconds) {
+        purgeExpired();
+        long budget = memoryBudget();
+        if (reservedBytes.addAndGet(estimatedBytes) > budget) {
+            reservedBytes.addAndGet(-estimatedBytes);
+            throw new IllegalArgumentException("Estimated memory " + estimatedBytes + " bytes exceeds the available reasoning budget ("
+                + (budget - reservedBytes.get()) + " of " + budget + " bytes free)");
+        }
+        long timeout = Math.min(timeoutSeconds != null && timeoutSeconds > 0 ? timeoutSeconds : defaultTimeoutSeconds, maxTimeoutSeconds);
+        ReasoningJob job = new ReasoningJob(UUID.randomUUID().toString(), estimatedBytes, TimeUnit.SECONDS.toMillis(timeout));
+        try {
+            job.setFuture(executor.submit(() -> run(job, task)));
+        } catch (RejectedExecutionException e) {
+            release(job);
+            throw new RejectedExecutionException("Reasoning queue is full (" + queueCapacity + " jobs)", e);
+        }
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private void run(ReasoningJob job, Function<ReasoningJob, Map<String, Object>> task) {
+        if (!job.start()) {
+            release(job);
+            return;
+        }
+        running.incrementAndGet();
+        Thread worker = Thread.currentThread();
+        // 超时只中断工作线程；任务在工作线程实际退出后才变为 TIMED_OUT（内存预留也在那时释放）
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (job.requestStop(ReasoningJob.Status.TIMED_OUT, "Timed out after " + job.getTimeoutMillis() + " ms")) {
+                worker.interrupt();
+            }
+        }, job.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        try {
+            Map<String, Object> result = task.apply(job);
+            job.complete(ReasoningJob.Status.SUCCEEDED, result, null);
+        } catch (CancellationException e) {
+            job.complete(ReasoningJob.Status.CANCELLED, null, "Cancelled");
+        } catch (Throwable e) {
+            job.complete(ReasoningJob.Status.FAILED, null, e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            timeout.cancel(false);
+            running.decrementAndGet();
+            // 清除中断标志，线程回到线程池继续使用
+            Thread.interrupted();
+            release(job);
+        }
+    }
+
+    public ReasoningJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * 取消任务：排队中的任务直接移出；执行中的任务中断工作线程，工作线程退出后才变为 CANCELLED
+     */
+    public boolean cancel(String id) {
+        ReasoningJob job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        Future<?> future = job.getFuture();
+        if (job.cancelQueued()) {
+            if (future != null) {
+                future.cancel(false);
+                if (future instanceof Runnable) executor.remove((Runnable) future);
+            }
+            // 未开始的任务不会再执行 run()，在这里释放内存预留
+            release(job);
+            return true;
+        }
+        if (!job.requestStop(ReasoningJob.Status.CANCELLED, "Cancelled")) {
+            return false;
+        }
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * 线程池与内存预算统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("queued", executor.getQueue().size());
+        stats.put("running", running.get());
+        stats.put("retainedJobs", jobs.size());
+        stats.put("reservedBytes", reservedBytes.get());
+        stats.put("memoryBudgetBytes", memoryBudget());
+        return stats;
+    }
+
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    private long memoryBudget() {
+        return maxEstimatedBytes > 0 ? maxEstimatedBytes : Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    private void release(ReasoningJob job) {
+        if (job.markReleased()) {
+            reservedBytes.addAndGet(-job.getEstimatedBytes());
+        }
+    }
+
+    private void purgeExpired() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(j -> j.isDone() && j.getFinishedAt() < cutoff);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.reasoner.rulesys.ClauseEntry;
+import org.apache.jena.reasoner.rulesys.Functor;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.apache.jena.reasoner.rulesys.RuleContext;
+import org.apache.jena.reasoner.rulesys.builtins.BaseBuiltin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 推理与 RDF 读写指标（Micrometer，经 /actuator/prometheus 暴露）
+ * - reasoning.phase.duration{phase, reasoner}：parse / reason / materialize / serialize / write 各阶段耗时
+ * - rdf.import.duration{mode, phase}：导入的 parse / collect / write（Neo4j 写入）耗时，rdf.export.duration{format}
+ * - reasoning.triples.in / reasoning.triples.inferred{reasoner}、rdf.import.triples{mode}：三元组计数
+ * - rdf.import.queries{mode}：每次导入的 Bolt 查询数（分布）
+ * - reasoning.result.cache{result}：推理结果缓存命中 / 未命中
+ * - reasoning.rule.firings{rule}：CUSTOM 规则按规则名的触发次数；规则名来自用户提交的规则，
+ *   只有最先出现的 reasoning.metrics.rule-tags-max 个规则名各有标签，其余规则计入 rule="custom"
+ */
+@Component
+public class ReasoningMetrics {
+
+    /** Neo4jBulkWriter 记录的写入阶段，合计为 write */
+    private static final Set<String> WRITE_PHASES = new HashSet<>(Arrays.asList("nodes", "labels", "properties", "relationships"));
+
+    /** 超出 rule 标签上限的规则共用的标签 */
+    private static final String CUSTOM_RULE_TAG = "custom";
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /** 是否统计规则触发次数（规则体末尾追加计数内置函数，每次触发一次计数器自增） */
+    @Value("${reasoning.metrics.rule-firings:true}")
+    private boolean ruleFirings;
+
+    /** rule 标签的不同取值上限，限制时间序列数 */
+    @Value("${reasoning.metrics.rule-tags-max:100}")
+    private int ruleTagsMax;
+
+    /** 已有独立标签的规则名 */
+    private final Set<String> ruleTags = new HashSet<>();
+
+    /**
+     * 对推理流水线的一个阶段计时
+     *
+     * @param reasonerType 推理器类型；与推理器无关的阶段（解析、序列化）为空
+     */
+    public <T> T time(String phase, ReasonerType reasonerType, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            Timer.builder("reasoning.phase.duration")
+                .description("Duration of a reasoning pipeline phase")
+                .tag("phase", phase)
+                .tag("reasoner", reasonerType == null ? "none" : reasonerType.name())
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 推理输入 / 推理得出的三元组数
+     */
+    public void recordTriples(ReasonerType reasonerType, long inputTriples, long inferredTriples) {
+        String reasoner = reasonerType.name();
+        Counter.builder("reasoning.triples.in")
+            .description("Triples given to the reasoner")
+            .tag("reasoner", reasoner)
+            .register(registry)
+            .increment(inputTriples);
+        Counter.builder("reasoning.triples.inferred")
+            .description("New triples derived by the reasoner")
+            .tag("reasoner", reasoner)
+            .register(registry)
+            .increment(Math.max(0, inferredTriples));
+    }
+
+    /**
+     * 一次导入的统计：各阶段耗时（Neo4j 写入阶段合计为 write）、三元组数和 Bolt 查询数
+     *
+     * @param mode text（整体解析）、stream（流式）、parallel（分段并行解析）或 model（内存模型，如推理结果）
+     */
+    public void recordImport(String mode, ImportStats stats) {
+        long writeMillis = 0;
+        for (Map.Entry<String, Long> phase : stats.getPhaseMillis().entrySet()) {
+            if (WRITE_PHASES.contains(phase.getKey())) {
+                writeMillis += phase.getValue();
+            } else {
+                importTimer(mode, phase.getKey()).record(phase.getValue(), TimeUnit.MILLISECONDS);
+            }
+        }
+        importTimer(mode, "write").record(writeMillis, TimeUnit.MILLISECONDS);
+        Counter.builder("rdf.import.triples")
+            .description("Triples imported into Neo4j")
+            .tag("mode", mode)
+            .register(registry)
+            .increment(stats.getTriples());
+        DistributionSummary.builder("rdf.import.queries")
+            .description("Bolt queries issued per import")
+            .tag("mode", mode)
+            .register(registry)
+            .record(stats.getQueries());
+    }
+
+    /**
+     * 推理结果缓存查找结果：hit / miss
+     */
+    public void recordResultCache(String outcome) {
+        Counter.builder("reasoning.result.cache")
+            .description("Inference result cache lookups")
+            .tag("result", outcome)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * 导出耗时（读取 Neo4j 与序列化交替进行，整体计时）
+     */
+    public void recordExport(String format, long nanos) {
+        Timer.builder("rdf.export.duration")
+            .description("Duration of a streaming RDF export")
+            .tag("format", format)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 为规则集加入触发计数：每条规则复制一份，规则体末尾追加绑定该规则计数器的内置函数，
+     * 规则体其余部分全部匹配后才会执行到它，因此计数即触发次数；规则名和推导记录不变
+     */
+    public List<Rule> instrument(List<Rule> rules) {
+        if (!ruleFirings) {
+            return rules;
+        }
+        List<Rule> instrumented = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            String name = rule.getName() != null ? rule.getName() : "unnamed";
+            Counter counter = Counter.builder("reasoning.rule.firings")
+                .description("Rule firings of CUSTOM rule sets")
+                .tag("rule", ruleTag(name))
+                .register(registry);
+            ClauseEntry[] body = Arrays.copyOf(rule.getBody(), rule.getBody().length + 1);
+            body[body.length - 1] = new Functor(RuleFiring.NAME,
+                new Node[] { NodeFactory.createLiteral(name) }, new RuleFiring(counter));
+            Rule copy = new Rule(rule.getName(), rule.getHead(), body);
+            copy.setBackward(rule.isBackward());
+            copy.setNumVars(rule.getNumVars());
+            instrumented.add(copy);
+        }
+        return instrumented;
+    }
+
+    /**
+     * 规则名对应的 rule 标签：达到上限后新出现的规则名统一为 custom
+     */
+    private synchronized String ruleTag(String name) {
+        if (ruleTags.contains(name) || ruleTags.size() < ruleTagsMax && ruleTags.add(name)) {
+            return name;
+        }
+        return CUSTOM_RULE_TAG;
+    }
+
+    private Timer importTimer(String mode, String phase) {
+        return Timer.builder("rdf.import.duration")
+            .description("Duration of an RDF import phase")
+            .tag("mode", mode)
+            .tag("phase", phase)
+            .register(registry);
+    }
+
+    /**
+     * 规则体内置函数：总是成立，每次求值时计数器加一
+     */
+    private static final class RuleFiring extends BaseBuiltin {
+        static final String NAME = "countRuleFiring";
+
+        private final Counter counter;
+
+        RuleFiring(Counter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @Override
+        public int getArgLength() {
+            return 1;
+        }
+
+        @Override
+        public boolean bodyCall(Node[] args, int length, RuleContext context) {
+            counter.increment();
+            return true;
+        }
+    }
+}
@@ -1,20 +1,29 @@
 package com.example.demo.service;
 
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.*;
 import org.apache.jena.reasoner.*;
 import org.apache.jena.reasoner.rulesys.*;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
 import org.apache.jena.vocabulary.RDFS;
 import org.apache.jena.vocabulary.OWL;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
 
 /**
  * 逻辑推理服务
@@ -29,6 +38,58 @@ public class ReasoningService {
     @Autowired
     private Neo4jClient neo4jClient;
     
+    @Autowired
+    private ReasonerCache reasonerCache;
+    
+    @Autowired
+    private OntologyRegistry ontologyRegistry;
+    
+    @Autowired
+    private InferenceWriter inferenceWriter;
+    
+    @Autowired
+    private ReasoningMetrics metrics;
+    
+    @Autowired
+    private InferenceResultCache resultCache;
+    
+    /** 过户流程分析查询，只解析一次 */
+    private static final org.apache.jena.query.Query STEP_QUERY = org.apache.jena.query.QueryFactory.create(
+        "PREFIX crm: <http://example.com/crm/transfer#> " +
+        "SELECT ?step WHERE { " +
+        "  ?process crm:hasProcessStep ?step . " +
+        "} ORDER BY ?step");
+    private static final org.apache.jena.query.Query VIOLATION_QUERY = org.apache.jena.query.QueryFactory.create(
+        "PREFIX crm: <http://example.com/crm/transfer#> " +
+        "SELECT ?rule WHERE { " +
+        "  ?process crm:violatesRule ?rule . " +
+        "}");
+    
+    /** 分区推理线程数；0 表示 CPU 核数 */
+    @Value("${reasoning.partition.parallelism:0}")
+    private int partitionParallelism;
+    
+    /** 分区最小三元组数，小分区合并后再推理 */
+    @Value("${reasoning.partition.min-triples:2000}")
+    private int partitionMinTriples;
+    
+    private ForkJoinPool partitionPool;
+    
+    /** 已加载的规则文件：路径、修改时间和内容，文件修改后重新读取 */
+    private volatile java.nio.file.Path transferRulesPath;
+    private volatile long transferRulesModified = -1;
+    private volatile String transferRulesText;
+    
+    @PostConstruct
+    public void init() {
+        partitionPool = new ForkJoinPool(partitionParallelism > 0 ? partitionParallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        partitionPool.shutdownNow();
+    }
+    
     /**
      * 推理类型枚举
      */
@@ -49,64 +110,306 @@ public class ReasoningService {
      * @return 推理后的 RDF 模型（Turtle 格式）
      */
     public String performReasoning(String rdfData, ReasonerType reasonerType, String customRules) {
-        // 1. 加载 RDF 数据到模型
-        Model model = ModelFactory.createDefaultModel();
-        ByteArrayInputStream in = new ByteArrayInputStream(rdfData.getBytes(StandardCharsets.UTF_8));
-        
-        // 自动检测格式
-        Lang lang = detectRdfFormat(rdfData);
-        RDFDataMgr.read(model, in, lang);
-        
-        // 2. 选择推理器
-        Reasoner reasoner = createReasoner(reasonerType, customRules);
-        
-        // 3. 创建推理模型
-        InfModel infModel = ModelFactory.createInfModel(reasoner, model);
-        
-        // 4. 执行推理（触发推理计算）
+        return performReasoning(rdfData, reasonerType, customRules, null);
+    }
+    
+    /**
+     * 执行推理（可指定已注册的本体）
+     * 
+     * @param ontology 已注册本体名称；非空时使用预先 bindSchema 的推理器，rdfData 只需包含实例数据
+     */
+    public String performReasoning(String rdfData, ReasonerType reasonerType, String customRules, String ontology) {
+        InfModel infModel = reason(parseRdfData(rdfData), reasonerType, customRules, ontology);
+        return serializeToTurtle(materialize(infModel));
+    }
+    
+    /**
+     * 对内存模型执行推理，返回已 prepare 的推理模型
+     * 推理流水线各阶段之间直接传递模型，不再经过文本序列化/解析
+     */
+    public InfModel reason(Model data, ReasonerType reasonerType, String customRules, String ontology) {
+        return reason(data, reasonerType, customRules, ontology, null);
+    }
+    
+    /**
+     * 对内存模型执行推理（可指定 CUSTOM 规则引擎配置，为空时按规则自动选择引擎模式）
+     */
+    public InfModel reason(Model data, ReasonerType reasonerType, String customRules, String ontology, RuleEngineConfig engine) {
+        return metrics.time("reason", reasonerType, () -> prepare(data, reasonerType, customRules, ontology, engine));
+    }
+    
+    /**
+     * reason 的不计时部分，供自行计时的调用方（分区推理）使用
+     */
+    private InfModel prepare(Model data, ReasonerType reasonerType, String customRules, String ontology, RuleEngineConfig engine) {
+        // 选择推理器
+        Reasoner reasoner = ontology == null || ontology.isEmpty()
+            ? createReasoner(reasonerType, customRules, engine)
+            : ontologyRegistry.getBoundReasoner(ontology, reasonerType, customRules, engine);
+        
+        // 创建推理模型并触发推理计算；输入图可被中断（异步任务超时/取消）
+        Model input = ModelFactory.createModelForGraph(new InterruptibleGraph(data.getGraph()));
+        InfModel infModel = ModelFactory.createInfModel(reasoner, input);
         infModel.prepare();
-        
-        // 5. 获取推理结果（包括原始数据和推理出的新三元组）
+        return infModel;
+    }
+    
+    /**
+     * 物化推理结果（包括原始数据和推理出的新三元组）
+     * RDFS/OWL 推理器含后向规则，其结论不在 getDeductionsModel() 中，因此这里遍历完整闭包
+     */
+    public Model materialize(InfModel infModel) {
+        return metrics.time("materialize", null, () -> copyClosure(infModel));
+    }
+    
+    /**
+     * materialize 的不计时部分
+     */
+    private static Model copyClosure(InfModel infModel) {
         Model resultModel = ModelFactory.createDefaultModel();
+        resultModel.setNsPrefixes(infModel.getRawModel().getNsPrefixMap());
         StmtIterator it = infModel.listStatements();
         while (it.hasNext()) {
+            // 后向推理在遍历时才进行，这里同样响应中断
+            InterruptibleGraph.checkInterrupted();
             resultModel.add(it.next());
         }
-        
-        // 6. 序列化为 Turtle
-        return serializeToTurtle(resultModel);
+        return resultModel;
+    }
+    
+    /**
+     * 注册命名本体（TBox），之后的推理请求可通过 ontology 参数引用
+     * 
+     * @return 本体三元组数
+     */
+    public long registerOntology(String name, String rdfData) {
+        Model schema = parseRdfData(rdfData);
+        ontologyRegistry.register(name, schema);
+        return schema.size();
+    }
+    
+    /**
+     * 已注册的本体及其三元组数
+     */
+    public Map<String, Long> listOntologies() {
+        return ontologyRegistry.list();
     }
     
     /**
      * 执行推理并保存到 Neo4j
      */
     public Map<String, Object> performReasoningAndSave(String rdfData, ReasonerType reasonerType, String customRules, boolean saveToNeo4j) {
+        return performReasoningAndSave(rdfData, reasonerType, customRules, saveToNeo4j, null, Lang.TURTLE);
+    }
+    
+    /**
+     * 执行推理并保存到 Neo4j（可指定已注册的本体和结果格式）
+     * 输入只解析一次，统计直接取自内存模型，resultData 按 outputLang 序列化一次
+     */
+    public Map<String, Object> performReasoningAndSave(String rdfData, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang) {
+        return performReasoningAndSave(rdfData, reasonerType, customRules, saveToNeo4j, ontology, outputLang, null);
+    }
+    
+    /**
+     * 执行推理并保存到 Neo4j（可指定 CUSTOM 规则引擎配置）
+     */
+    public Map<String, Object> performReasoningAndSave(String rdfData, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang, RuleEngineConfig engine) {
+        long startTime = System.currentTimeMillis();
+        // 不写 Neo4j 的请求结果只取决于输入，可直接复用缓存的结果
+        Map<String, Object> result = saveToNeo4j
+            ? performReasoningAndSave(parseRdfData(rdfData), reasonerType, customRules, true, ontology, outputLang, engine)
+            : resultCache.compute(resultVariant("execute", reasonerType, customRules, ontology, engine) + "|" + outputLang.getName(),
+                rdfData, this::parseRdfData,
+                model -> performReasoningAndSave(model, reasonerType, customRules, false, ontology, outputLang, engine));
+        result.put("executionTime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    /**
+     * 对已加载的模型执行推理并保存到 Neo4j（如直接从 Neo4j 加载的子图）
+     */
+    public Map<String, Object> performReasoningAndSave(Model originalModel, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang) {
+        return performReasoningAndSave(originalModel, reasonerType, customRules, saveToNeo4j, ontology, outputLang, null);
+    }
+    
+    /**
+     * 对已加载的模型执行推理并保存到 Neo4j（可指定 CUSTOM 规则引擎配置）
+     */
+    public Map<String, Object> performReasoningAndSave(Model originalModel, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang, RuleEngineConfig engine) {
         long startTime = System.currentTimeMillis();
         
         // 执行推理
-        String resultTurtle = performReasoning(rdfData, reasonerType, customRules);
+        Model resultModel = withoutSchemaClosure(materialize(reason(originalModel, reasonerType, customRules, ontology, engine)),
+            originalModel, reasonerType, customRules, ontology, engine);
         
-        // 统计信息
-        Model originalModel = parseRdfData(rdfData);
-        Model inferredModel = parseRdfData(resultTurtle);
+        Map<String, Object> result = reasoningResult(originalModel, resultModel, reasonerType, saveToNeo4j, ontology, outputLang, startTime);
+        putEngine(result, reasonerType, customRules, engine);
+        return result;
+    }
+    
+    /**
+     * 分区推理并保存到 Neo4j
+     * 
+     * @param partitionKey 分区键谓词 IRI（可为空，此时只按连通分量分区）
+     */
+    public Map<String, Object> performPartitionedReasoning(String rdfData, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang, RuleEngineConfig engine, String partitionKey) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result = performPartitionedReasoning(parseRdfData(rdfData), reasonerType, customRules, saveToNeo4j, ontology, outputLang, engine, partitionKey);
+        result.put("executionTime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    /**
+     * 对已加载的模型执行分区推理并保存到 Neo4j
+     * 各分区的推理和物化在并行任务中交织进行，整体只计一次 reason 阶段耗时（不再单独记录 materialize）
+     */
+    public Map<String, Object> performPartitionedReasoning(Model originalModel, ReasonerType reasonerType, String customRules, boolean saveToNeo4j, String ontology, Lang outputLang, RuleEngineConfig engine, String partitionKey) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Model resultModel = metrics.time("reason", reasonerType,
+            () -> reasonPartitioned(originalModel, reasonerType, customRules, ontology, engine, partitionKey, stats));
+        Map<String, Object> result = reasoningResult(originalModel, resultModel, reasonerType, saveToNeo4j, ontology, outputLang, startTime);
+        putEngine(result, reasonerType, customRules, engine);
+        result.put("partitioning", stats);
+        return result;
+    }
+    
+    /**
+     * 分区推理：本体（请求中的 TBox 三元组和已注册本体）只绑定一次，
+     * 实例数据按连通分量 / 分区键拆分后在 ForkJoinPool 中并行推理，最后合并各分区的推理闭包
+     * 
+     * @param stats 输出分区统计
+     * @return 原始数据与所有推理结果的合并模型
+     */
+    public Model reasonPartitioned(Model data, ReasonerType reasonerType, String customRules, String ontology, RuleEngineConfig engine, String partitionKey, Map<String, Object> stats) {
+        boolean withOntology = ontology != null && !ontology.isEmpty();
+        Model[] split = GraphPartitioner.splitSchema(data);
+        Model inlineSchema = split[0];
+        
+        // 1. 共享的本体和推理器
+        Model schema = ModelFactory.createDefaultModel().add(inlineSchema);
+        if (withOntology) {
+            schema.add(ontologyRegistry.getSchema(ontology));
+        }
+        Reasoner reasoner;
+        if (inlineSchema.isEmpty()) {
+            reasoner = withOntology ? ontologyRegistry.getBoundReasoner(ontology, reasonerType, customRules, engine) : createReasoner(reasonerType, customRules, engine);
+        } else {
+            reasoner = createReasoner(reasonerType, customRules, engine).bindSchema(schema);
+        }
         
+        // 2. 拆分实例数据
+        long partitionStart = System.currentTimeMillis();
+        List<Model> partitions = new GraphPartitioner(schema, partitionKey).partition(split[1], partitionMinTriples);
+        stats.put("partitions", partitions.size());
+        stats.put("largestPartition", partitions.stream().mapToLong(Model::size).max().orElse(0));
+        stats.put("schemaTriples", inlineSchema.size());
+        stats.put("partitionTime", System.currentTimeMillis() - partitionStart);
+        stats.put("parallelism", partitionPool.getParallelism());
+        
+        // 3. 并行推理；调用线程被中断或请求停止（任务超时/取消）时各分区的输入图随之中断
+        BooleanSupplier stopped = InterruptibleGraph.stopSignal();
+        ForkJoinTask<List<Model>> task = partitionPool.submit(() -> partitions.parallelStream()
+            .map(partition -> {
+                InfModel infModel = ModelFactory.createInfModel(reasoner,
+                    ModelFactory.createModelForGraph(new InterruptibleGraph(partition.getGraph(), stopped)));
+                infModel.prepare();
+                return copyClosure(infModel);
+            })
+            .collect(java.util.stream.Collectors.toList()));
+        List<Model> closures;
+        try {
+            closures = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            throw new java.util.concurrent.CancellationException("Reasoning interrupted");
+        } catch (java.util.concurrent.ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        
+        // 4. 合并：原始数据 + 各分区闭包 + 本体自身的推理结果（如子类传递）
+        Model resultModel = ModelFactory.createDefaultModel();
+        resultModel.setNsPrefixes(data.getNsPrefixMap());
+        resultModel.add(data);
+        closures.forEach(resultModel::add);
+        if (!inlineSchema.isEmpty()) {
+            resultModel.add(copyClosure(prepare(inlineSchema, reasonerType, customRules, ontology, engine)));
+        }
+        return withoutSchemaClosure(resultModel, data, reasonerType, customRules, ontology, engine);
+    }
+    
+    /**
+     * 去掉已注册本体自身的推理闭包中不属于输入数据的三元组：绑定本体的推理结果包含本体及其推理结果，
+     * 它们不是由实例数据得出的，不计入新三元组，也不写回 Neo4j
+     */
+    private Model withoutSchemaClosure(Model resultModel, Model originalModel, ReasonerType reasonerType, String customRules, String ontology, RuleEngineConfig engine) {
+        if (ontology == null || ontology.isEmpty()) {
+            return resultModel;
+        }
+        Graph original = originalModel.getGraph();
+        Graph result = resultModel.getGraph();
+        for (Triple t : ontologyRegistry.getSchemaClosure(ontology, reasonerType, customRules, engine)) {
+            if (!original.contains(t)) result.delete(t);
+        }
+        return resultModel;
+    }
+    
+    /**
+     * 推理结果缓存键中与输入无关的部分：操作、推理器类型、规则哈希和引擎配置（CUSTOM）、本体及其内容指纹
+     */
+    private String resultVariant(String operation, ReasonerType reasonerType, String customRules, String ontology, RuleEngineConfig engine) {
+        StringBuilder variant = new StringBuilder(operation).append('|').append(reasonerType.name());
+        if (reasonerType == ReasonerType.CUSTOM) {
+            variant.append(':').append(ReasonerCache.sha256(customRules == null ? "" : customRules))
+                .append('|').append(RuleEngineConfig.orDefault(engine).key());
+        }
+        if (ontology != null && !ontology.isEmpty()) {
+            variant.append('@').append(ontology).append(':').append(ontologyRegistry.getFingerprint(ontology));
+        }
+        return variant.toString();
+    }
+    
+    /**
+     * CUSTOM 推理时在结果中附带实际使用的规则引擎配置（AUTO 解析后的模式）
+     */
+    private void putEngine(Map<String, Object> result, ReasonerType reasonerType, String customRules, RuleEngineConfig engine) {
+        if (reasonerType == ReasonerType.CUSTOM) {
+            result.put("engine", reasonerCache.getEntry(reasonerType, customRules, engine).getEngine().toMap());
+        }
+    }
+    
+    /**
+     * 组装推理结果（统计、序列化结果数据），需要时保存到 Neo4j
+     */
+    private Map<String, Object> reasoningResult(Model originalModel, Model resultModel, ReasonerType reasonerType, boolean saveToNeo4j, String ontology, Lang outputLang, long startTime) {
+        // 统计信息
         long originalTriples = originalModel.size();
-        long inferredTriples = inferredModel.size();
+        long inferredTriples = resultModel.size();
         long newTriples = inferredTriples - originalTriples;
+        metrics.recordTriples(reasonerType, originalTriples, newTriples);
         
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
         result.put("reasonerType", reasonerType.name());
+        if (ontology != null && !ontology.isEmpty()) {
+            result.put("ontology", ontology);
+        }
         result.put("originalTriples", originalTriples);
         result.put("inferredTriples", inferredTriples);
         result.put("newTriples", newTriples);
         result.put("executionTime", System.currentTimeMillis() - startTime);
-        result.put("resultData", resultTurtle);
+        result.put("resultFormat", outputLang.getName());
+        result.put("resultData", serialize(resultModel, outputLang));
+        if (isBinary(outputLang)) {
+            result.put("resultEncoding", "base64");
+        }
         
         // 保存到 Neo4j（如果需要）
         if (saveToNeo4j) {
             try {
-                rdfService.importRdf(resultTurtle, "text/turtle");
+                metrics.time("write", reasonerType, () -> rdfService.importModel(resultModel));
                 result.put("savedToNeo4j", true);
             } catch (Exception e) {
                 result.put("savedToNeo4j", false);
@@ -117,21 +420,107 @@ public class ReasoningService {
         return result;
     }
     
+    /**
+     * 增量推理：只把推理增量写回 Neo4j，每条推导带来源（规则名、运行 ID），
+     * 并撤销同一作用域中上次运行得出、本次不再成立的推导
+     * 
+     * @param scope 推导作用域，为空时取 推理器类型 + 规则哈希 + 本体；
+     *              只对部分数据（如单个客户）推理时应传入独立作用域，否则会撤销作用域内其他数据的推导
+     */
+    public Map<String, Object> performIncrementalReasoning(String rdfData, ReasonerType reasonerType, String customRules, String ontology, String scope) {
+        return performIncrementalReasoning(parseRdfData(rdfData), reasonerType, customRules, ontology, scope, null);
+    }
+    
+    /**
+     * 增量推理（可指定 CUSTOM 规则引擎配置；推导记录总是开启，用于记录规则名）
+     */
+    public Map<String, Object> performIncrementalReasoning(String rdfData, ReasonerType reasonerType, String customRules, String ontology, String scope, RuleEngineConfig engine) {
+        return performIncrementalReasoning(parseRdfData(rdfData), reasonerType, customRules, ontology, scope, engine);
+    }
+    
+    /**
+     * 对已加载的模型执行增量推理
+     */
+    public Map<String, Object> performIncrementalReasoning(Model originalModel, ReasonerType reasonerType, String customRules, String ontology, String scope) {
+        return performIncrementalReasoning(originalModel, reasonerType, customRules, ontology, scope, null);
+    }
+    
+    /**
+     * 对已加载的模型执行增量推理（可指定 CUSTOM 规则引擎配置）
+     */
+    public Map<String, Object> performIncrementalReasoning(Model originalModel, ReasonerType reasonerType, String customRules, String ontology, String scope, RuleEngineConfig engine) {
+        long startTime = System.currentTimeMillis();
+        boolean withOntology = ontology != null && !ontology.isEmpty();
+        
+        // CUSTOM 推理器开启推导记录（单独的缓存条目，不影响其他请求共享的推理器）
+        RuleEngineConfig incrementalEngine = RuleEngineConfig.orDefault(engine).withDerivationLogging(true);
+        InfModel infModel = reason(originalModel, reasonerType, customRules, ontology, incrementalEngine);
+        Model delta = withoutSchemaClosure(materialize(infModel), originalModel, reasonerType, customRules, ontology, incrementalEngine)
+            .difference(originalModel);
+        metrics.recordTriples(reasonerType, originalModel.size(), delta.size());
+        
+        if (scope == null || scope.isEmpty()) {
+            scope = reasonerType.name()
+                + (reasonerType == ReasonerType.CUSTOM ? ":" + ReasonerCache.sha256(customRules).substring(0, 16) : "")
+                + (withOntology ? "@" + ontology : "");
+        }
+        String runId = UUID.randomUUID().toString();
+        InfModel inf = infModel;
+        String writeScope = scope;
+        Map<String, Object> written = metrics.time("write", reasonerType,
+            () -> inferenceWriter.write(delta, writeScope, runId, stmt -> ruleName(inf, stmt, reasonerType)));
+        rdfService.markGraphChanged();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("reasonerType", reasonerType.name());
+        result.put("writeMode", "incremental");
+        result.put("originalTriples", originalModel.size());
+        result.put("newTriples", delta.size());
+        result.put("runId", runId);
+        result.put("scope", scope);
+        result.put("retracted", written.get("retracted"));
+        putEngine(result, reasonerType, customRules, incrementalEngine);
+        result.put("neo4jWrite", written);
+        result.put("savedToNeo4j", true);
+        result.put("executionTime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    /**
+     * 推导出某条三元组的规则名；无推导记录（内置推理器、后向规则）时使用推理器类型名
+     */
+    private String ruleName(InfModel infModel, Statement stmt, ReasonerType reasonerType) {
+        Iterator<Derivation> it = infModel.getDerivation(stmt);
+        while (it != null && it.hasNext()) {
+            Derivation d = it.next();
+            if (d instanceof RuleDerivation && ((RuleDerivation) d).getRule().getName() != null) {
+                return ((RuleDerivation) d).getRule().getName();
+            }
+        }
+        return reasonerType.name();
+    }
+    
     /**
      * 获取推理产生的新三元组
      */
     public String getInferredTriplesOnly(String rdfData, ReasonerType reasonerType, String customRules) {
-        // 原始模型
+        return serializeToTurtle(inferNewTriples(rdfData, reasonerType, customRules, null));
+    }
+    
+    /**
+     * 获取推理产生的新三元组（可指定已注册的本体），由调用方按需序列化
+     */
+    public Model inferNewTriples(String rdfData, ReasonerType reasonerType, String customRules, String ontology) {
         Model originalModel = parseRdfData(rdfData);
-        
-        // 推理后模型
-        String resultTurtle = performReasoning(rdfData, reasonerType, customRules);
-        Model inferredModel = parseRdfData(resultTurtle);
-        
-        // 计算差异（推理产生的新三元组）
-        Model diffModel = inferredModel.difference(originalModel);
-        
-        return serializeToTurtle(diffModel);
+        Model resultModel = withoutSchemaClosure(materialize(reason(originalModel, reasonerType, customRules, ontology)),
+            originalModel, reasonerType, customRules, ontology, null);
+        
+        // 计算差异（推理产生的新三元组，不含本体自身的推理闭包）
+        Model diffModel = resultModel.difference(originalModel);
+        metrics.recordTriples(reasonerType, originalModel.size(), diffModel.size());
+        diffModel.setNsPrefixes(originalModel.getNsPrefixMap());
+        return diffModel;
     }
     
     /**
@@ -169,6 +558,7 @@ public class ReasoningService {
                 ruleInfo.add(info);
             }
             result.put("rules", ruleInfo);
+            result.put("recommendedEngine", RuleEngineConfig.auto().resolve(ruleList).toMap());
             result.put("message", "规则验证通过！共 " + ruleList.size() + " 条规则。");
         } catch (Exception e) {
             result.put("valid", false);
@@ -264,7 +654,7 @@ public class ReasoningService {
             for (String pathStr : possiblePaths) {
                 java.nio.file.Path rulesPath = java.nio.file.Paths.get(pathStr);
                 if (java.nio.file.Files.exists(rulesPath)) {
-                    return new String(java.nio.file.Files.readAllBytes(rulesPath), StandardCharsets.UTF_8);
+                    return readTransferRules(rulesPath);
                 }
             }
             
@@ -274,6 +664,25 @@ public class ReasoningService {
         }
     }
     
+    /**
+     * 按文件修改时间缓存规则文本；文件变化时重新读取，并使旧规则集的推理器缓存失效
+     */
+    private synchronized String readTransferRules(java.nio.file.Path rulesPath) throws java.io.IOException {
+        long modified = java.nio.file.Files.getLastModifiedTime(rulesPath).toMillis();
+        if (rulesPath.equals(transferRulesPath) && modified == transferRulesModified && transferRulesText != null) {
+            return transferRulesText;
+        }
+        String previous = transferRulesText;
+        String text = new String(java.nio.file.Files.readAllBytes(rulesPath), StandardCharsets.UTF_8);
+        if (previous != null && !previous.equals(text)) {
+            reasonerCache.invalidate(ReasonerType.CUSTOM, previous);
+        }
+        transferRulesPath = rulesPath;
+        transferRulesModified = modified;
+        transferRulesText = text;
+        return text;
+    }
+    
     /**
      * 推理完整的过户流程（从最小输入推理所有步骤）
      * 
@@ -286,21 +695,37 @@ public class ReasoningService {
         // 1. 加载CRM过户流程推理规则
         String rules = loadTransferProcessRules();
         
-        // 2. 执行推理
-        String resultTurtle = performReasoning(minimalRdfData, ReasonerType.CUSTOM, rules);
+        // 2. 推理并分析（相同输入复用缓存结果）
+        Map<String, Object> result = resultCache.compute(resultVariant("transfer", ReasonerType.CUSTOM, rules, null, null),
+            minimalRdfData, this::parseRdfData, model -> inferTransferProcess(model, rules, true));
+        result.put("executionTime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    /**
+     * 对已解析的过户流程输入执行推理、步骤分析和违规检测
+     * 批量推理时由多个线程并发调用，共享同一份已编译规则（经 ReasonerCache）
+     * 
+     * @param rules 过户流程规则文本（loadTransferProcessRules）
+     * @param includeData 是否在结果中附带推理后的 Turtle 数据
+     */
+    public Map<String, Object> inferTransferProcess(Model originalModel, String rules, boolean includeData) {
+        long startTime = System.currentTimeMillis();
         
-        // 3. 统计推理结果
-        Model originalModel = parseRdfData(minimalRdfData);
-        Model inferredModel = parseRdfData(resultTurtle);
+        // 1. 执行推理
+        Model inferredModel = materialize(reason(originalModel, ReasonerType.CUSTOM, rules, null));
+        long reasonTime = System.currentTimeMillis() - startTime;
         
+        // 2. 统计推理结果
         long originalTriples = originalModel.size();
         long inferredTriples = inferredModel.size();
         long newTriples = inferredTriples - originalTriples;
+        metrics.recordTriples(ReasonerType.CUSTOM, originalTriples, newTriples);
         
-        // 4. 分析推理出的流程步骤
+        // 3. 分析推理出的流程步骤
         List<String> inferredSteps = analyzeInferredSteps(inferredModel);
         
-        // 5. 检测业务规则违规
+        // 4. 检测业务规则违规
         List<String> ruleViolations = detectRuleViolations(inferredModel);
         
         Map<String, Object> result = new HashMap<>();
@@ -309,8 +734,12 @@ public class ReasoningService {
         result.put("originalTriples", originalTriples);
         result.put("inferredTriples", inferredTriples);
         result.put("newTriples", newTriples);
+        result.put("reasoningTime", reasonTime);
+        result.put("analysisTime", System.currentTimeMillis() - startTime - reasonTime);
         result.put("executionTime", System.currentTimeMillis() - startTime);
-        result.put("resultData", resultTurtle);
+        if (includeData) {
+            result.put("resultData", serializeToTurtle(inferredModel));
+        }
         result.put("inferredSteps", inferredSteps);
         result.put("inferredStepCount", inferredSteps.size());
         result.put("ruleViolations", ruleViolations);
@@ -324,14 +753,8 @@ public class ReasoningService {
      */
     private List<String> analyzeInferredSteps(Model model) {
         List<String> steps = new ArrayList<>();
-        String queryStr = 
-            "PREFIX crm: <http://example.com/crm/transfer#> " +
-            "SELECT ?step WHERE { " +
-            "  ?process crm:hasProcessStep ?step . " +
-            "} ORDER BY ?step";
-        
         try (org.apache.jena.query.QueryExecution qexec = 
-            org.apache.jena.query.QueryExecutionFactory.create(queryStr, model)) {
+            org.apache.jena.query.QueryExecutionFactory.create(STEP_QUERY, model)) {
             org.apache.jena.query.ResultSet results = qexec.execSelect();
             while (results.hasNext()) {
                 org.apache.jena.query.QuerySolution soln = results.nextSolution();
@@ -354,14 +777,8 @@ public class ReasoningService {
      */
     private List<String> detectRuleViolations(Model model) {
         List<String> violations = new ArrayList<>();
-        String queryStr = 
-            "PREFIX crm: <http://example.com/crm/transfer#> " +
-            "SELECT ?rule WHERE { " +
-            "  ?process crm:violatesRule ?rule . " +
-            "}";
-        
         try (org.apache.jena.query.QueryExecution qexec = 
-            org.apache.jena.query.QueryExecutionFactory.create(queryStr, model)) {
+            org.apache.jena.query.QueryExecutionFactory.create(VIOLATION_QUERY, model)) {
             org.apache.jena.query.ResultSet results = qexec.execSelect();
             while (results.hasNext()) {
                 org.apache.jena.query.QuerySolution soln = results.nextSolution();
@@ -382,27 +799,14 @@ public class ReasoningService {
     // ========== 私有辅助方法 ==========
     
     /**
-     * 创建推理器
+     * 创建推理器（经 ReasonerCache 复用已编译的规则和推理器）
      */
     private Reasoner createReasoner(ReasonerType type, String customRules) {
-        switch (type) {
-            case RDFS:
-                return ReasonerRegistry.getRDFSReasoner();
-            case OWL:
-                return ReasonerRegistry.getOWLReasoner();
-            case OWL_MINI:
-                return ReasonerRegistry.getOWLMiniReasoner();
-            case OWL_MICRO:
-                return ReasonerRegistry.getOWLMicroReasoner();
-            case CUSTOM:
-                if (customRules == null || customRules.trim().isEmpty()) {
-                    throw new IllegalArgumentException("Custom rules are required for CUSTOM reasoner type");
-                }
-                List<Rule> rules = Rule.parseRules(customRules);
-                return new GenericRuleReasoner(rules);
-            default:
-                throw new IllegalArgumentException("Unknown reasoner type: " + type);
-        }
+        return reasonerCache.getReasoner(type, customRules);
+    }
+    
+    private Reasoner createReasoner(ReasonerType type, String customRules, RuleEngineConfig engine) {
+        return reasonerCache.getReasoner(type, customRules, engine);
     }
     
     /**
@@ -423,20 +827,60 @@ public class ReasoningService {
     /**
      * 解析 RDF 数据为模型
      */
-    private Model parseRdfData(String rdfData) {
-        Model model = ModelFactory.createDefaultModel();
-        ByteArrayInputStream in = new ByteArrayInputStream(rdfData.getBytes(StandardCharsets.UTF_8));
-        Lang lang = detectRdfFormat(rdfData);
-        RDFDataMgr.read(model, in, lang);
-        return model;
+    Model parseRdfData(String rdfData) {
+        return metrics.time("parse", null, () -> {
+            Model model = ModelFactory.createDefaultModel();
+            ByteArrayInputStream in = new ByteArrayInputStream(rdfData.getBytes(StandardCharsets.UTF_8));
+            Lang lang = detectRdfFormat(rdfData);
+            RDFDataMgr.read(model, in, lang);
+            return model;
+        });
     }
     
     /**
      * 序列化模型为 Turtle
      */
     private String serializeToTurtle(Model model) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        RDFDataMgr.write(out, model, Lang.TURTLE);
-        return out.toString(StandardCharsets.UTF_8);
+        return serialize(model, Lang.TURTLE);
+    }
+    
+    /**
+     * 按指定格式序列化模型；二进制格式（RDF Thrift / Protobuf）返回 Base64 文本，以便嵌入 JSON 结果
+     */
+    public String serialize(Model model, Lang lang) {
+        byte[] bytes = serializeBytes(model, lang);
+        return isBinary(lang) ? Base64.getEncoder().encodeToString(bytes) : new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 按指定格式序列化模型为字节（二进制格式直接输出，不经 Base64）
+     */
+    public byte[] serializeBytes(Model model, Lang lang) {
+        return metrics.time("serialize", null, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            RDFDataMgr.write(out, model, lang);
+            return out.toByteArray();
+        });
+    }
+    
+    /**
+     * 是否为二进制 RDF 格式（RDF Thrift、RDF Protobuf）
+     */
+    public static boolean isBinary(Lang lang) {
+        return Lang.RDFTHRIFT.equals(lang) || Lang.RDFPROTO.equals(lang);
+    }
+    
+    /**
+     * 解析客户端请求的结果格式（格式名或媒体类型，如 turtle、n-triples、application/ld+json、thrift、protobuf），默认 Turtle
+     */
+    public Lang resolveOutputLang(String format) {
+        if (format == null || format.trim().isEmpty()) return Lang.TURTLE;
+        String f = format.trim();
+        if ("thrift".equalsIgnoreCase(f)) return Lang.RDFTHRIFT;
+        if ("protobuf".equalsIgnoreCase(f) || "proto".equalsIgnoreCase(f)) return Lang.RDFPROTO;
+        Lang lang = RDFLanguages.contentTypeToLang(f.split(";")[0].trim());
+        if (lang == null) lang = RDFLanguages.nameToLang(f);
+        if (lang == null) lang = RDFLanguages.fileExtToLang(f);
+        return lang != null && RDFLanguages.isTriples(lang) ? lang : Lang.TURTLE;
     }
 }
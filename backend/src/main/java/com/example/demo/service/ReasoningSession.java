@@ -0,0 +1,353 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphListener;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.InfModel;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.reasoner.InfGraph;
+import org.apache.jena.reasoner.Reasoner;
+import org.apache.jena.reasoner.rulesys.ClauseEntry;
+import org.apache.jena.reasoner.rulesys.Functor;
+import org.apache.jena.reasoner.rulesys.Rule;
+
+import java.util.*;
+
+/**
+ * 持续推理会话：一个常驻的前向 RETE 推理图，接收小批量的增删三元组，返回每次变更新推导出 / 撤销的事实
+ * - 只新增、且不涉及 noValue 否定条件谓词的变更直接交给 RETE 网络增量匹配，耗时与变更规模相关而与会话大小无关
+ * - 删除，以及新增了被 noValue 否定的谓词（可能使已有结论失效）时重建推理图，再与之前的推导集合比较；
+ *   Jena RETE 引擎的增量删除不维护多重支持，会误删仍可推出的结论，也不会因新增事实撤销 noValue 结论
+ * 同一会话的变更串行执行；订阅者在会话锁内注册，非空的变更结果也在锁内按顺序交给订阅者，
+ * 因此订阅与关闭互斥，订阅者收到的事件顺序与变更顺序一致
+ */
+public class ReasoningSession {
+
+    /**
+     * 变更结果的订阅者；offer / close 在会话锁内调用，不得阻塞
+     */
+    public interface Subscriber {
+        void offer(Delta delta);
+
+        void close();
+    }
+
+    /**
+     * 一次变更的结果：新推导出的和被撤销的事实
+     */
+    public static final class Delta {
+        private final long sequence;
+        private final List<Triple> derived;
+        private final List<Triple> retracted;
+        private final boolean rebuilt;
+        private final long elapsedMicros;
+
+        Delta(long sequence, List<Triple> derived, List<Triple> retracted, boolean rebuilt, long elapsedMicros) {
+            this.sequence = sequence;
+            this.derived = derived;
+            this.retracted = retracted;
+            this.rebuilt = rebuilt;
+            this.elapsedMicros = elapsedMicros;
+        }
+
+        public long getSequence() { return sequence; }
+        public List<Triple> getDerived() { return derived; }
+        public List<Triple> getRetracted() { return retracted; }
+        public boolean isRebuilt() { return rebuilt; }
+
+        public boolean isEmpty() {
+            return derived.isEmpty() && retracted.isEmpty();
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sequence", sequence);
+            map.put("derived", toMaps(derived));
+            map.put("retracted", toMaps(retracted));
+            map.put("rebuilt", rebuilt);
+            map.put("elapsedMicros", elapsedMicros);
+            return map;
+        }
+    }
+
+    private final String id;
+    private final String rulesHash;
+    private final long createdAt;
+    private volatile long lastUsed;
+
+    private final InfModel infModel;
+    /** 被 noValue 否定的谓词；null 表示存在变量谓词，任何新增都可能使结论失效 */
+    private final Set<Node> negatedPredicates;
+
+    /** 当前推导集合（推导图的副本，用于重建后比较） */
+    private final Set<Triple> deductions = new HashSet<>();
+    /** RETE 增量变更期间由推导图监听器收集的变化 */
+    private final List<Triple> added = new ArrayList<>();
+    private final List<Triple> removed = new ArrayList<>();
+    private final GraphListener listener = new DeductionListener();
+    private Graph listenedGraph;
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private boolean closed;
+
+    private long sequence;
+    private long changes;
+    private long rebuilds;
+
+    ReasoningSession(String id, String rulesHash, Reasoner reasoner, List<Rule> rules) {
+        this.id = id;
+        this.rulesHash = rulesHash;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsed = createdAt;
+        this.infModel = ModelFactory.createInfModel(reasoner, ModelFactory.createDefaultModel());
+        this.infModel.prepare();
+        this.negatedPredicates = negatedPredicates(rules);
+        listen();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * 应用一次变更：先删除后新增
+     */
+    public synchronized Delta apply(Model additions, Model removals) {
+        long start = System.nanoTime();
+        lastUsed = System.currentTimeMillis();
+        Graph base = infModel.getRawModel().getGraph();
+        boolean rebuild = removals != null && removals.getGraph().find().filterKeep(base::contains).hasNext();
+        if (!rebuild && additions != null) {
+            rebuild = additions.getGraph().find()
+                .filterKeep(t -> !base.contains(t) && (negatedPredicates == null || negatedPredicates.contains(t.getPredicate())))
+                .hasNext();
+        }
+
+        List<Triple> derived;
+        List<Triple> retracted;
+        if (rebuild) {
+            if (removals != null) {
+                removals.getGraph().find().forEachRemaining(base::delete);
+            }
+            if (additions != null) {
+                additions.getGraph().find().forEachRemaining(base::add);
+            }
+            // 推理图重新准备后使用新的推导图
+            infModel.rebind();
+            infModel.prepare();
+            listen();
+            Set<Triple> current = new HashSet<>();
+            deductionsGraph().find().forEachRemaining(current::add);
+            derived = new ArrayList<>();
+            for (Triple t : current) {
+                if (!deductions.contains(t)) derived.add(t);
+            }
+            retracted = new ArrayList<>();
+            for (Triple t : deductions) {
+                if (!current.contains(t)) retracted.add(t);
+            }
+            deductions.clear();
+            deductions.addAll(current);
+            rebuilds++;
+        } else {
+            added.clear();
+            removed.clear();
+            if (additions != null) {
+                // 经推理图新增：RETE 网络只处理这些三元组
+                additions.getGraph().find().forEachRemaining(infModel.getGraph()::add);
+            }
+            derived = new ArrayList<>();
+            for (Triple t : added) {
+                if (deductions.add(t)) derived.add(t);
+            }
+            retracted = new ArrayList<>();
+            for (Triple t : removed) {
+                if (deductions.remove(t)) retracted.add(t);
+            }
+        }
+        changes++;
+        Delta delta = new Delta(++sequence, derived, retracted, rebuild, (System.nanoTime() - start) / 1000);
+        if (!delta.isEmpty()) {
+            // 副本：订阅者可能在 offer 中退订
+            for (Subscriber subscriber : new ArrayList<>(subscribers)) {
+                subscriber.offer(delta);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * 注册订阅者
+     *
+     * @return 会话已关闭时为 false
+     */
+    public synchronized boolean subscribe(Subscriber subscriber) {
+        if (closed) return false;
+        subscribers.add(subscriber);
+        return true;
+    }
+
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * 关闭会话：结束所有订阅，之后不再接受订阅
+     */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+    }
+
+    /**
+     * 当前已断言的三元组和推导出的事实（复制）
+     */
+    public synchronized Model snapshot() {
+        lastUsed = System.currentTimeMillis();
+        return ModelFactory.createDefaultModel().add(infModel);
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", id);
+        status.put("rulesHash", rulesHash);
+        status.put("assertedTriples", infModel.getRawModel().size());
+        status.put("derivedTriples", deductions.size());
+        status.put("changes", changes);
+        status.put("rebuilds", rebuilds);
+        status.put("lastSequence", sequence);
+        status.put("subscribers", subscribers.size());
+        // 新增这些谓词的三元组时重建；"*" 表示任何新增都重建
+        status.put("negatedPredicates", negatedPredicates == null ? Collections.singletonList("*")
+            : negatedPredicates.stream().map(Node::getURI).sorted().collect(java.util.stream.Collectors.toList()));
+        status.put("createdAt", createdAt);
+        status.put("lastUsed", lastUsed);
+        return status;
+    }
+
+    private Graph deductionsGraph() {
+        return ((InfGraph) infModel.getGraph()).getDeductionsGraph();
+    }
+
+    private void listen() {
+        Graph graph = deductionsGraph();
+        if (graph == listenedGraph) return;
+        if (listenedGraph != null) {
+            listenedGraph.getEventManager().unregister(listener);
+        }
+        graph.getEventManager().register(listener);
+        listenedGraph = graph;
+    }
+
+    // noValue(?s, p) / noValue(?s, p, o) 的谓词参数；变量谓词返回 null
+    static Set<Node> negatedPredicates(List<Rule> rules) {
+        Set<Node> predicates = new HashSet<>();
+        for (Rule rule : rules) {
+            for (ClauseEntry clause : rule.getBody()) {
+                if (clause instanceof Functor && "noValue".equals(((Functor) clause).getName())) {
+                    Node[] args = ((Functor) clause).getArgs();
+                    if (args.length < 2 || !args[1].isURI()) {
+                        return null;
+                    }
+                    predicates.add(args[1]);
+                }
+            }
+        }
+        return predicates;
+    }
+
+    /**
+     * 三元组的 JSON 表示：subject / predicate / object，字面量另附 datatype 或 lang
+     */
+    public static Map<String, Object> toMap(Triple t) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("subject", nodeString(t.getSubject()));
+        map.put("predicate", t.getPredicate().getURI());
+        Node o = t.getObject();
+        if (o.isLiteral()) {
+            map.put("object", o.getLiteralLexicalForm());
+            if (!o.getLiteralLanguage().isEmpty()) {
+                map.put("lang", o.getLiteralLanguage());
+            } else {
+                map.put("datatype", o.getLiteralDatatypeURI());
+            }
+        } else {
+            map.put("object", nodeString(o));
+        }
+        return map;
+    }
+
+    static List<Map<String, Object>> toMaps(List<Triple> triples) {
+        List<Map<String, Object>> maps = new ArrayList<>(triples.size());
+        triples.forEach(t -> maps.add(toMap(t)));
+        return maps;
+    }
+
+    private static String nodeString(Node node) {
+        return node.isBlank() ? "_:" + node.getBlankNodeLabel() : node.isURI() ? node.getURI() : node.toString();
+    }
+
+    private final class DeductionListener implements GraphListener {
+        @Override
+        public void notifyAddTriple(Graph g, Triple t) {
+            added.add(t);
+        }
+
+        @Override
+        public void notifyDeleteTriple(Graph g, Triple t) {
+            removed.add(t);
+        }
+
+        @Override
+        public void notifyAddArray(Graph g, Triple[] triples) {
+            added.addAll(Arrays.asList(triples));
+        }
+
+        @Override
+        public void notifyAddList(Graph g, List<Triple> triples) {
+            added.addAll(triples);
+        }
+
+        @Override
+        public void notifyAddIterator(Graph g, Iterator<Triple> it) {
+            it.forEachRemaining(added::add);
+        }
+
+        @Override
+        public void notifyAddGraph(Graph g, Graph added) {
+            added.find().forEachRemaining(ReasoningSession.this.added::add);
+        }
+
+        @Override
+        public void notifyDeleteArray(Graph g, Triple[] triples) {
+            removed.addAll(Arrays.asList(triples));
+        }
+
+        @Override
+        public void notifyDeleteList(Graph g, List<Triple> triples) {
+            removed.addAll(triples);
+        }
+
+        @Override
+        public void notifyDeleteIterator(Graph g, Iterator<Triple> it) {
+            it.forEachRemaining(removed::add);
+        }
+
+        @Override
+        public void notifyDeleteGraph(Graph g, Graph removed) {
+            removed.find().forEachRemaining(ReasoningSession.this.removed::add);
+        }
+
+        @Override
+        public void notifyEvent(Graph source, Object value) {
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 持续推理会话服务
+ * 管理常驻的 ReasoningSession（默认使用过户流程规则，前向 RETE 模式），解析增删三元组并应用到会话，
+ * 每次变更的推导 / 撤销结果按顺序推送给该会话的订阅者（SSE）：每个订阅者有自己的有界事件队列，
+ * 由推送线程池投递，慢客户端只阻塞自己的投递，不影响变更线程和其他订阅者；队列满的订阅者被断开
+ */
+@Service
+public class ReasoningSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReasoningSessionService.class);
+
+    @Autowired
+    private ReasoningService reasoningService;
+
+    @Autowired
+    private ReasonerCache reasonerCache;
+
+    @Autowired
+    private ReasoningMetrics metrics;
+
+    @Value("${reasoning.sessions.max-sessions:16}")
+    private int maxSessions;
+
+    /** 超过该时间没有变更的会话在下次创建会话时关闭 */
+    @Value("${reasoning.sessions.idle-timeout-minutes:60}")
+    private long idleTimeoutMinutes;
+
+    /** 每个订阅者最多排队的未送达变更数，超出时断开该订阅者 */
+    @Value("${reasoning.sessions.subscriber-queue:256}")
+    private int subscriberQueue;
+
+    private final Map<String, ReasoningSession> sessions = new ConcurrentHashMap<>();
+
+    /** 推送线程池；同一订阅者同时只有一个投递任务，事件按入队顺序送达 */
+    private ExecutorService publisher;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        publisher = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "reasoning-session-events-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    /**
+     * 创建会话
+     *
+     * @param rules   前向规则，为空时使用过户流程规则
+     * @param rdfData 初始数据（Turtle 等），可为空
+     * @throws IllegalArgumentException 规则含后向规则
+     * @throws IllegalStateException    会话数已达上限
+     */
+    public ReasoningSession create(String rules, String rdfData, String format) {
+        String ruleText = rules == null || rules.trim().isEmpty() ? reasoningService.loadTransferProcessRules() : rules;
+        ReasonerCache.Entry entry = reasonerCache.getEntry(ReasonerType.CUSTOM, ruleText, RuleEngineConfig.of(RuleEngineConfig.Mode.FORWARD_RETE));
+        if (RuleEngineConfig.auto().resolve(entry.getRules()).getMode() != RuleEngineConfig.Mode.FORWARD_RETE) {
+            throw new IllegalArgumentException("Reasoning sessions need forward rules only (no backward rules)");
+        }
+        purgeIdle();
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Too many reasoning sessions (" + maxSessions + ")");
+        }
+        ReasoningSession session = new ReasoningSession(UUID.randomUUID().toString(), ReasonerCache.sha256(ruleText),
+            entry.getReasoner(), entry.getRules());
+        if (rdfData != null && !rdfData.trim().isEmpty()) {
+            session.apply(parse(rdfData, format), null);
+        }
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    public ReasoningSession get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * 应用一次变更并通知订阅者
+     *
+     * @param add    新增的三元组（Turtle / N-Triples 等），可为空
+     * @param remove 删除的三元组，可为空
+     * @return 会话不存在时为 null
+     */
+    public ReasoningSession.Delta apply(String id, String add, String remove, String format) {
+        ReasoningSession session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        Model additions = add == null || add.trim().isEmpty() ? null : parse(add, format);
+        Model removals = remove == null || remove.trim().isEmpty() ? null : parse(remove, format);
+        return metrics.time("session-delta", ReasonerType.CUSTOM, () -> session.apply(additions, removals));
+    }
+
+    /**
+     * 订阅会话的推导变化
+     *
+     * @param onDelta 每次非空变更调用一次（推送线程，同一订阅者按变更顺序）
+     * @param onClose 会话关闭或订阅者跟不上被断开时调用
+     * @return 取消订阅；会话不存在或已关闭时为 null
+     */
+    public Runnable subscribe(String id, Consumer<ReasoningSession.Delta> onDelta, Runnable onClose) {
+        ReasoningSession session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        QueuedSubscriber subscriber = new QueuedSubscriber(session, onDelta, onClose);
+        // 与 close 在会话锁内互斥：关闭后的会话拒绝订阅
+        if (!session.subscribe(subscriber)) {
+            return null;
+        }
+        return subscriber::cancel;
+    }
+
+    /**
+     * 关闭会话并结束其订阅
+     */
+    public boolean close(String id) {
+        ReasoningSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        session.close();
+        return true;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        List<Map<String, Object>> list = new ArrayList<>();
+        sessions.values().forEach(s -> list.add(s.getStatus()));
+        stats.put("sessions", list);
+        stats.put("maxSessions", maxSessions);
+        stats.put("idleTimeoutMinutes", idleTimeoutMinutes);
+        stats.put("subscriberQueue", subscriberQueue);
+        return stats;
+    }
+
+    private void purgeIdle() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+        for (ReasoningSession session : new ArrayList<>(sessions.values())) {
+            if (session.getLastUsed() < cutoff) {
+                log.info("Closing idle reasoning session {}", session.getId());
+                close(session.getId());
+            }
+        }
+    }
+
+    private static Model parse(String text, String format) {
+        Lang lang = format == null || format.isEmpty() ? Lang.TURTLE : RDFLanguages.nameToLang(format);
+        if (lang == null) {
+            lang = RDFLanguages.contentTypeToLang(format);
+        }
+        if (lang == null) {
+            throw new IllegalArgumentException("Unknown RDF format: " + format);
+        }
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.fromString(text).lang(lang).parse(model);
+        return model;
+    }
+
+    /**
+     * 订阅者的有界事件队列：入队不阻塞（在会话锁内调用），由推送线程池中的一个投递任务按顺序送达；
+     * 队列满时丢弃未送达的事件、退订并结束连接，客户端可重新订阅
+     */
+    private final class QueuedSubscriber implements ReasoningSession.Subscriber {
+        private final ReasoningSession session;
+        private final Consumer<ReasoningSession.Delta> onDelta;
+        private final Runnable onClose;
+        private final BlockingQueue<ReasoningSession.Delta> queue;
+        /** 是否已有投递任务 */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /** onClose 已调用，或客户端已断开 */
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile boolean closed;
+
+        QueuedSubscriber(ReasoningSession session, Consumer<ReasoningSession.Delta> onDelta, Runnable onClose) {
+            this.session = session;
+            this.onDelta = onDelta;
+            this.onClose = onClose;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, subscriberQueue));
+        }
+
+        @Override
+        public void offer(ReasoningSession.Delta delta) {
+            if (closed) return;
+            if (!queue.offer(delta)) {
+                log.info("Reasoning session {} subscriber fell behind ({} undelivered changes), disconnecting",
+                    session.getId(), queue.size());
+                session.unsubscribe(this);
+                closed = true;
+                queue.clear();
+            }
+            schedule();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            schedule();
+        }
+
+        /** 客户端断开或超时：不再投递，也不再调用 onClose */
+        void cancel() {
+            finished.set(true);
+            closed = true;
+            queue.clear();
+            session.unsubscribe(this);
+        }
+
+        private void schedule() {
+            if (finished.get() || !scheduled.compareAndSet(false, true)) return;
+            try {
+                publisher.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // 应用关闭中
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                ReasoningSession.Delta delta;
+                while (!finished.get() && (delta = queue.poll()) != null) {
+                    try {
+                        onDelta.accept(delta);
+                    } catch (RuntimeException e) {
+                        log.debug("Reasoning session subscriber failed: {}", e.getMessage());
+                    }
+                }
+                // 会话关闭时先送完已排队的事件
+                if (closed && queue.isEmpty() && finished.compareAndSet(false, true)) {
+                    onClose.run();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // 投递期间入队的事件或关闭请求
+            if (!queue.isEmpty() || closed) schedule();
+        }
+    }
+}
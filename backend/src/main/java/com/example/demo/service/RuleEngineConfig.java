@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.reasoner.TriplePattern;
+import org.apache.jena.reasoner.rulesys.ClauseEntry;
+import org.apache.jena.reasoner.rulesys.GenericRuleReasoner;
+import org.apache.jena.reasoner.rulesys.Rule;
+
+import java.util.*;
+
+// Engine settings for the CUSTOM (GenericRuleReasoner) reasoner: rule mode, tabled predicates,
+// derivation logging and OWL translation. Mode AUTO analyses the rule set: only forward rules
+// -> FORWARD_RETE, only backward rules -> BACKWARD (recursive head predicates are tabled),
+// otherwise HYBRID. Part of the ReasonerCache key, so each configuration is compiled once.
+public class RuleEngineConfig {
+
+    public enum Mode {
+        AUTO,
+        FORWARD,
+        FORWARD_RETE,
+        BACKWARD,
+        HYBRID
+    }
+
+    private static final RuleEngineConfig DEFAULT = new RuleEngineConfig(Mode.AUTO, Collections.emptySet(), false, false);
+
+    private final Mode mode;
+    private final Set<String> tabled;
+    private final boolean derivationLogging;
+    private final boolean owlTranslation;
+
+    private RuleEngineConfig(Mode mode, Set<String> tabled, boolean derivationLogging, boolean owlTranslation) {
+        this.mode = mode;
+        this.tabled = Collections.unmodifiableSet(new TreeSet<>(tabled));
+        this.derivationLogging = derivationLogging;
+        this.owlTranslation = owlTranslation;
+    }
+
+    public static RuleEngineConfig auto() {
+        return DEFAULT;
+    }
+
+    public static RuleEngineConfig of(Mode mode) {
+        return new RuleEngineConfig(mode, Collections.emptySet(), false, false);
+    }
+
+    // null -> AUTO
+    public static RuleEngineConfig orDefault(RuleEngineConfig config) {
+        return config != null ? config : DEFAULT;
+    }
+
+    // From a request "engine" object: {"mode": "FORWARD_RETE", "tabled": [iri, ...], "derivationLogging": true, "owlTranslation": false}
+    @SuppressWarnings("unchecked")
+    public static RuleEngineConfig fromMap(Map<String, Object> map) {
+        if (map == null || map.isEmpty()) {
+            return DEFAULT;
+        }
+        Object modeValue = map.get("mode");
+        Mode mode;
+        try {
+            mode = modeValue == null ? Mode.AUTO : Mode.valueOf(modeValue.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid rule engine mode: " + modeValue + " (expected one of " + Arrays.toString(Mode.values()) + ")");
+        }
+        Set<String> tabled = new HashSet<>();
+        Object tabledValue = map.get("tabled");
+        if (tabledValue instanceof Collection) {
+            ((Collection<Object>) tabledValue).forEach(p -> tabled.add(p.toString()));
+        } else if (tabledValue != null) {
+            tabled.add(tabledValue.toString());
+        }
+        return new RuleEngineConfig(mode, tabled,
+            Boolean.TRUE.equals(map.get("derivationLogging")),
+            Boolean.TRUE.equals(map.get("owlTranslation")));
+    }
+
+    public RuleEngineConfig withDerivationLogging(boolean enabled) {
+        return enabled == derivationLogging ? this : new RuleEngineConfig(mode, tabled, enabled, owlTranslation);
+    }
+
+    // Concrete settings for `rules`: AUTO replaced by the analysed mode; in a backward/hybrid
+    // result, head predicates that backward rules also query are tabled (recursion would not terminate)
+    public RuleEngineConfig resolve(List<Rule> rules) {
+        boolean forward = false;
+        List<Rule> backwardRules = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule.isBackward()) {
+                backwardRules.add(rule);
+            } else {
+                forward = true;
+                for (ClauseEntry head : rule.getHead()) {
+                    // forward rule producing a backward rule needs the hybrid engine
+                    if (head instanceof Rule) {
+                        backwardRules.add((Rule) head);
+                    }
+                }
+            }
+        }
+        Mode resolved = mode;
+        if (mode == Mode.AUTO) {
+            resolved = backwardRules.isEmpty() ? Mode.FORWARD_RETE : (forward ? Mode.HYBRID : Mode.BACKWARD);
+        }
+        Set<String> tables = new HashSet<>(tabled);
+        if (mode == Mode.AUTO && !backwardRules.isEmpty()) {
+            Set<String> queried = predicates(backwardRules, false);
+            for (String head : predicates(backwardRules, true)) {
+                if (queried.contains(head)) tables.add(head);
+            }
+        }
+        return new RuleEngineConfig(resolved, tables, derivationLogging, owlTranslation);
+    }
+
+    // Same settings with the given predicates tabled as well
+    public RuleEngineConfig withTabled(Collection<String> predicates) {
+        Set<String> tables = new HashSet<>(tabled);
+        tables.addAll(predicates);
+        return new RuleEngineConfig(mode, tables, derivationLogging, owlTranslation);
+    }
+
+    // Predicate IRIs used in rule heads (heads = true) or bodies
+    public static Set<String> predicates(List<Rule> rules, boolean heads) {
+        Set<String> predicates = new HashSet<>();
+        for (Rule rule : rules) {
+            for (ClauseEntry clause : heads ? rule.getHead() : rule.getBody()) {
+                if (clause instanceof TriplePattern && ((TriplePattern) clause).getPredicate().isURI()) {
+                    predicates.add(((TriplePattern) clause).getPredicate().getURI());
+                }
+            }
+        }
+        return predicates;
+    }
+
+    // A reasoner with these settings; call on a resolved config.
+    // tablePredicate appends a table() directive to the rule list, so the reasoner gets its own copy.
+    public GenericRuleReasoner createReasoner(List<Rule> rules) {
+        GenericRuleReasoner reasoner = new GenericRuleReasoner(new ArrayList<>(rules));
+        reasoner.setMode(ruleMode(mode));
+        reasoner.setDerivationLogging(derivationLogging);
+        reasoner.setOWLTranslation(owlTranslation);
+        for (String predicate : tabled) {
+            Node node = NodeFactory.createURI(predicate);
+            reasoner.tablePredicate(node);
+        }
+        return reasoner;
+    }
+
+    private static GenericRuleReasoner.RuleMode ruleMode(Mode mode) {
+        switch (mode) {
+            case FORWARD:
+                return GenericRuleReasoner.FORWARD;
+            case FORWARD_RETE:
+                return GenericRuleReasoner.FORWARD_RETE;
+            case BACKWARD:
+                return GenericRuleReasoner.BACKWARD;
+            default:
+                return GenericRuleReasoner.HYBRID;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Set<String> getTabled() {
+        return tabled;
+    }
+
+    public boolean isDerivationLogging() {
+        return derivationLogging;
+    }
+
+    public boolean isOwlTranslation() {
+        return owlTranslation;
+    }
+
+    // Cache key fragment
+    String key() {
+        return mode + (tabled.isEmpty() ? "" : ";table=" + String.join(",", tabled))
+            + (derivationLogging ? ";derivations" : "") + (owlTranslation ? ";owl" : "");
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("mode", mode.name());
+        map.put("tabled", new ArrayList<>(tabled));
+        map.put("derivationLogging", derivationLogging);
+        map.put("owlTranslation", owlTranslation);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
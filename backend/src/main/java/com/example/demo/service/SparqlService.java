@@ -0,0 +1,323 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import org.apache.jena.atlas.io.IndentedWriter;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.*;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RIOT;
+import org.apache.jena.riot.ResultSetMgr;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.writer.WriterStreamRDFBlocks;
+import org.apache.jena.riot.writer.WriterStreamRDFPlain;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.OpVisitorBase;
+import org.apache.jena.sparql.algebra.op.OpService;
+import org.apache.jena.sparql.algebra.walker.Walker;
+import org.apache.jena.sparql.engine.ResultSetStream;
+import org.apache.jena.sparql.engine.binding.Binding;
+import org.apache.jena.sparql.expr.ExprVisitorBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SPARQL 查询服务：在常驻内存的推理闭包快照上执行只读查询，不再为每个问题跑一次完整推理
+ * - 快照：从 Neo4j（启用 rdf.tdb2 且已同步时从 TDB2）加载已断言的事实，按 sparql.reasoner 推理并物化后包装为 Dataset；
+ *   重建在后台线程完成后整体替换引用，查询不被阻塞，也看不到构建到一半的快照
+ * - 导入或增量写回使图版本变化后，下一次查询触发后台重建，重建完成前继续用旧快照（stale）
+ * - 预编译查询缓存：查询文本 → 解析后的 Query（LRU），重复查询省去解析
+ * - 每个查询有超时（sparql.timeout-ms）和返回行数上限（sparql.max-rows）
+ * - 不允许联邦查询：含 SERVICE 的查询在解析时拒绝，执行上下文也关闭 SERVICE，服务端不会向外发起 HTTP 请求
+ */
+@Service
+public class SparqlService {
+
+    private static final Logger log = LoggerFactory.getLogger(SparqlService.class);
+
+    @Autowired
+    private RdfService rdfService;
+
+    @Autowired
+    private ReasoningService reasoningService;
+
+    @Autowired
+    private Tdb2Store tdb2Store;
+
+    /** 快照使用的推理器类型；NONE 表示不推理，直接查询已断言的事实。CUSTOM 使用过户流程规则文件 */
+    @Value("${sparql.reasoner:RDFS}")
+    private String reasoner;
+
+    /** 推理时绑定的已注册本体，空表示不绑定 */
+    @Value("${sparql.ontology:}")
+    private String ontology;
+
+    @Value("${sparql.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${sparql.max-rows:10000}")
+    private int maxRows;
+
+    @Value("${sparql.query-cache-size:256}")
+    private int queryCacheSize;
+
+    /** 启动后在后台构建快照，否则第一次查询时构建 */
+    @Value("${sparql.warm-up:false}")
+    private boolean warmUp;
+
+    private volatile Snapshot snapshot;
+
+    /** 后台重建线程；同一时刻最多一次重建 */
+    private ExecutorService refresher;
+    private Future<?> refreshing;
+
+    private Map<String, Query> queryCache;
+    private long queryCacheHits;
+    private long queryCacheMisses;
+
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "sparql-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        queryCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Query> eldest) {
+                return size() > queryCacheSize;
+            }
+        };
+        if (warmUp) {
+            refresh();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 解析查询（带缓存）；语法错误或含 SERVICE 时抛出 QueryParseException
+     */
+    public Query prepare(String queryText) {
+        synchronized (queryCache) {
+            Query cached = queryCache.get(queryText);
+            if (cached != null) {
+                queryCacheHits++;
+                return cached;
+            }
+            queryCacheMisses++;
+        }
+        Query query = QueryFactory.create(queryText);
+        if (usesService(query)) {
+            throw new QueryParseException("SERVICE (federated query) is not allowed", -1, -1);
+        }
+        // 结果变量在执行时才惰性计算，缓存的 Query 会被并发使用，这里先算好
+        query.setResultVars();
+        synchronized (queryCache) {
+            queryCache.put(queryText, query);
+        }
+        return query;
+    }
+
+    /**
+     * 当前快照：尚未构建时在调用线程上构建；图已变化时触发后台重建并返回旧快照
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = build();
+                }
+                return snapshot;
+            }
+        }
+        if (current.version != rdfService.getGraphVersion()) {
+            refresh();
+        }
+        return current;
+    }
+
+    /**
+     * 快照构建后图是否又有变化（此时后台已在重建）
+     */
+    public boolean isStale(Snapshot snapshot) {
+        return snapshot.version != rdfService.getGraphVersion();
+    }
+
+    /**
+     * 触发后台重建（已在重建时忽略）
+     */
+    public synchronized void refresh() {
+        if (refreshing != null && !refreshing.isDone()) {
+            return;
+        }
+        refreshing = refresher.submit(() -> {
+            try {
+                snapshot = build();
+            } catch (RuntimeException e) {
+                log.warn("SPARQL snapshot rebuild failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    // 编译后的代数含 OpService（包括子查询、EXISTS 中的 SERVICE）
+    static boolean usesService(Query query) {
+        boolean[] found = {false};
+        // 带表达式访问器时 Walker 也进入 FILTER/BIND 中 EXISTS 的模式
+        Walker.walk(Algebra.compile(query), new OpVisitorBase() {
+            @Override
+            public void visit(OpService opService) {
+                found[0] = true;
+            }
+        }, new ExprVisitorBase());
+        return found[0];
+    }
+
+    /**
+     * 在快照上执行查询，结果流式写入 out；行数（CONSTRUCT/DESCRIBE 为三元组数）不超过 limit 和 sparql.max-rows
+     *
+     * @param resultLang SELECT/ASK 的结果格式（ResultSetLang.RS_JSON、RS_TSV 等）
+     * @param graphLang  CONSTRUCT/DESCRIBE 的结果格式（Lang.TURTLE 或 Lang.NTRIPLES）
+     */
+    public void execute(Snapshot snapshot, Query query, int limit, Lang resultLang, Lang graphLang, OutputStream out) {
+        int rows = limit > 0 ? Math.min(limit, maxRows) : maxRows;
+        try (QueryExecution qe = QueryExecution.dataset(snapshot.dataset).query(query)
+                .set(ARQ.httpServiceAllowed, false)
+                .timeout(timeoutMs, TimeUnit.MILLISECONDS).build()) {
+            if (query.isSelectType()) {
+                ResultSet results = qe.execSelect();
+                Iterator<Binding> limited = limit(new Iterator<Binding>() {
+                    @Override
+                    public boolean hasNext() {
+                        return results.hasNext();
+                    }
+
+                    @Override
+                    public Binding next() {
+                        return results.nextBinding();
+                    }
+                }, rows);
+                ResultSetMgr.write(out, ResultSetStream.create(results.getResultVars(), null, limited), resultLang);
+            } else if (query.isAskType()) {
+                ResultSetMgr.write(out, qe.execAsk(), resultLang);
+            } else {
+                Iterator<Triple> triples = limit(query.isConstructType() ? qe.execConstructTriples() : qe.execDescribeTriples(), rows);
+                IndentedWriter w = new IndentedWriter(out);
+                StreamRDF writer = Lang.NTRIPLES.equals(graphLang)
+                    ? new WriterStreamRDFPlain(w)
+                    : new WriterStreamRDFBlocks(w, RIOT.getContext());
+                writer.start();
+                query.getPrefixMapping().getNsPrefixMap().forEach(writer::prefix);
+                triples.forEachRemaining(writer::triple);
+                writer.finish();
+                w.flush();
+            }
+        }
+    }
+
+    /**
+     * 快照与查询缓存状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        Snapshot current = snapshot;
+        status.put("ready", current != null);
+        status.put("reasoner", reasoner);
+        status.put("ontology", ontology);
+        if (current != null) {
+            status.put("triples", current.triples);
+            status.put("builtAt", current.builtAt);
+            status.put("buildMillis", current.buildMillis);
+            status.put("stale", isStale(current));
+        }
+        synchronized (this) {
+            status.put("refreshing", refreshing != null && !refreshing.isDone());
+        }
+        synchronized (queryCache) {
+            status.put("cachedQueries", queryCache.size());
+            status.put("queryCacheHits", queryCacheHits);
+            status.put("queryCacheMisses", queryCacheMisses);
+        }
+        status.put("timeoutMs", timeoutMs);
+        status.put("maxRows", maxRows);
+        return status;
+    }
+
+    private Snapshot build() {
+        // 先取版本再加载：加载期间发生的导入会让快照立即显得过期，从而再重建一次
+        long version = rdfService.getGraphVersion();
+        long start = System.currentTimeMillis();
+        // TDB2 已同步时在其读事务内直接推理，只把物化的闭包留在内存中
+        Model closure = tdb2Store.isSynced()
+            ? tdb2Store.read(this::closure)
+            : closure(rdfService.loadModel(GraphSelection.all(), true));
+        // 快照只读，并发查询直接读内存图，无需事务
+        return new Snapshot(DatasetFactory.wrap(closure), version, closure.size(), start, System.currentTimeMillis() - start);
+    }
+
+    private Model closure(Model data) {
+        if ("NONE".equalsIgnoreCase(reasoner)) {
+            return ModelFactory.createDefaultModel().add(data);
+        }
+        ReasonerType type = ReasonerType.valueOf(reasoner.toUpperCase());
+        String rules = type == ReasonerType.CUSTOM ? reasoningService.loadTransferProcessRules() : null;
+        return reasoningService.materialize(reasoningService.reason(data, type, rules, ontology.isEmpty() ? null : ontology));
+    }
+
+    private static <T> Iterator<T> limit(Iterator<T> it, int max) {
+        return new Iterator<T>() {
+            private int returned;
+
+            @Override
+            public boolean hasNext() {
+                return returned < max && it.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                returned++;
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * 推理闭包快照：构建时的图版本、三元组数、构建时间
+     */
+    public static final class Snapshot {
+        private final Dataset dataset;
+        private final long version;
+        private final long triples;
+        private final long builtAt;
+        private final long buildMillis;
+
+        Snapshot(Dataset dataset, long version, long triples, long builtAt, long buildMillis) {
+            this.dataset = dataset;
+            this.version = version;
+            this.triples = triples;
+            this.builtAt = builtAt;
+            this.buildMillis = buildMillis;
+        }
+
+        public long getVersion() { return version; }
+        public long getTriples() { return triples; }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.demo.service;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWrapper;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.system.Txn;
+import org.apache.jena.system.progress.MonitorOutput;
+import org.apache.jena.tdb2.DatabaseMgr;
+import org.apache.jena.tdb2.TDB2Factory;
+import org.apache.jena.tdb2.loader.DataLoader;
+import org.apache.jena.tdb2.loader.LoaderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Optional persistent TDB2 copy of the imported triples (`rdf.tdb2.enabled`). Imports are
+// mirrored into it next to Neo4j, and reasoning over the whole graph runs on it in place, in a
+// read transaction, instead of paging every node out of Neo4j into a Model first; Neo4j stays
+// the store the UI and the graph views work on. TDB2 keeps its node table and B+tree indexes in
+// memory-mapped files, so after a restart the data is queryable as soon as the directory is opened.
+// Only imports are mirrored: inferences written back to Neo4j are derived again from the
+// asserted triples here. Quads go to the default graph, as they do in Neo4j.
+// A store enabled on an existing graph only holds later imports, so it is seeded from Neo4j once
+// (see seed()); until then it is not in sync and readers keep loading from Neo4j. The marker is
+// a triple in a named graph of its own, committed after the seed load.
+@Component
+public class Tdb2Store {
+    private static final Logger log = LoggerFactory.getLogger(Tdb2Store.class);
+
+    @Value("${rdf.tdb2.enabled:false}")
+    private boolean enabled;
+
+    // Required when enabled: the store is persistent, so it must not default to a temp directory
+    @Value("${rdf.tdb2.directory:}")
+    private String directory;
+
+    // Bulk loader: parallel (most threads, fastest on an empty store), phased, sequential or basic
+    @Value("${rdf.tdb2.loader:phased}")
+    private String loader;
+
+    // Named graph holding the in-sync marker
+    private static final String SYNC_GRAPH = "urn:x-tdb2:sync";
+    private static final String SEEDED_AT = "urn:x-tdb2:seededAt";
+
+    private Dataset dataset;
+
+    private volatile boolean synced;
+
+    // Runs read transactions, see read()
+    private ExecutorService reader;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) return;
+        if (directory == null || directory.trim().isEmpty()) {
+            throw new IllegalStateException("rdf.tdb2.directory must be set when rdf.tdb2.enabled is true");
+        }
+        AtomicInteger seq = new AtomicInteger();
+        reader = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "tdb2-reader-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Path dir = Paths.get(directory.trim());
+        Files.createDirectories(dir);
+        dataset = TDB2Factory.connectDataset(dir.toString());
+        synced = Txn.calculateRead(dataset, () -> !dataset.getNamedModel(SYNC_GRAPH).isEmpty());
+        log.info("TDB2 store at {} ({} loader, {})", dir.toAbsolutePath(), loader, synced ? "in sync" : "not seeded yet");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reader != null) reader.shutdown();
+        if (dataset != null) dataset.close();
+    }
+
+    public boolean isEnabled() {
+        return dataset != null;
+    }
+
+    // Whether the store holds the whole graph, i.e. has been seeded from Neo4j; only then may
+    // reasoning and SPARQL read it instead of Neo4j
+    public boolean isSynced() {
+        return isEnabled() && synced;
+    }
+
+    // Replace the default graph with what `source` sends (an export of the asserted triples in
+    // Neo4j) and mark the store in sync. Imports running meanwhile are mirrored as usual: the
+    // graph is cleared before the export starts, so they are either in the export or added after
+    // the clear. Readers fall back to Neo4j until the marker is committed.
+    public synchronized void seed(Consumer<StreamRDF> source) {
+        synced = false;
+        Txn.executeWrite(dataset, () -> {
+            dataset.removeNamedModel(SYNC_GRAPH);
+            dataset.getDefaultModel().removeAll();
+        });
+        long t0 = System.currentTimeMillis();
+        bulkLoad(source);
+        Txn.executeWrite(dataset, () -> {
+            Model marker = dataset.getNamedModel(SYNC_GRAPH);
+            marker.addLiteral(marker.createResource(SYNC_GRAPH), marker.createProperty(SEEDED_AT), System.currentTimeMillis());
+        });
+        synced = true;
+        log.info("TDB2 store seeded from Neo4j in {} ms", System.currentTimeMillis() - t0);
+    }
+
+    // Add an already parsed model in one write transaction
+    public void add(Model model) {
+        Txn.executeWrite(dataset, () -> dataset.getDefaultModel().add(model));
+    }
+
+    // Bulk-load whatever `source` sends to the stream; readers see the data once the load has
+    // finished. Callers pass data that has already parsed: the phased and parallel loaders do
+    // not roll back or stop their worker threads when a load is aborted halfway.
+    public void bulkLoad(Consumer<StreamRDF> source) {
+        DataLoader dataLoader = createLoader();
+        dataLoader.startBulk();
+        try {
+            source.accept(new DefaultGraph(dataLoader.stream()));
+            dataLoader.finishBulk();
+        } catch (RuntimeException e) {
+            dataLoader.finishException(e);
+            throw e;
+        }
+    }
+
+    // Run `action` on the default graph inside a read transaction, e.g. reasoning over the whole
+    // graph without copying it onto the heap first. The action runs on a store thread, which is
+    // never interrupted: an interrupt during TDB2 file I/O closes its channels
+    // (ClosedByInterruptException), leaving the dataset unusable until it is reopened. Instead the
+    // caller's stop signal (interrupt, see InterruptibleGraph) is passed on as a cooperative flag
+    // that the action checks as it reads the graph, and the caller waits until the action has
+    // returned, so the transaction never outlives the call.
+    public <T> T read(Function<Model, T> action) {
+        BooleanSupplier callerStop = InterruptibleGraph.stopSignal();
+        // waiting clears the caller's interrupt flag, so an interrupt is latched here
+        AtomicBoolean interrupted = new AtomicBoolean();
+        BooleanSupplier stop = () -> interrupted.get() || callerStop.getAsBoolean();
+        Future<T> result = reader.submit(() -> Txn.calculateRead(dataset,
+                () -> InterruptibleGraph.callWithStop(stop, () -> action.apply(dataset.getDefaultModel()))));
+        try {
+            while (true) {
+                try {
+                    return result.get();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted.get()) Thread.currentThread().interrupt();
+        }
+    }
+
+    // Reclaim the space of old versions left behind by write transactions; the previous
+    // generation directory is deleted
+    public void compact() {
+        DatabaseMgr.compact(dataset.asDatasetGraph(), true);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", isEnabled());
+        status.put("directory", directory);
+        status.put("loader", loader);
+        status.put("synced", isSynced());
+        if (isEnabled()) {
+            status.put("location", DatabaseMgr.location(dataset.asDatasetGraph()).getDirectoryPath());
+            status.put("triples", read(Model::size));
+        }
+        return status;
+    }
+
+    private DataLoader createLoader() {
+        MonitorOutput output = (fmt, args) -> log.debug(String.format(fmt, args));
+        switch (loader.toLowerCase()) {
+            case "parallel":
+                return LoaderFactory.parallelLoader(dataset.asDatasetGraph(), output);
+            case "sequential":
+                return LoaderFactory.sequentialLoader(dataset.asDatasetGraph(), output);
+            case "basic":
+                return LoaderFactory.basicLoader(dataset.asDatasetGraph(), output);
+            default:
+                return LoaderFactory.phasedLoader(dataset.asDatasetGraph(), output);
+        }
+    }
+
+    // Sends quads to the default graph
+    private static final class DefaultGraph extends StreamRDFWrapper {
+        DefaultGraph(StreamRDF other) {
+            super(other);
+        }
+
+        @Override
+        public void quad(Quad quad) {
+            triple(quad.asTriple());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Dictionary of the resource terms of one import batch: every distinct subject/object node gets
+// a dense int id the first time it is seen, and its `iri` (the "_bnode_" form for blank nodes) is
+// built once and shared by every row that refers to it. Ids are handed out in first-seen order,
+// so visiting a set of ids in ascending order visits the terms in source order.
+// The table is open-addressed over int slots, so a term costs a slot, a Node reference (usually
+// the parser's own instance) and its iri string, with no boxed keys or map entries.
+// Predicates and rdf:type objects are few, so what is derived from them (property key,
+// relationship type, sanitised label) is cached separately; next() starts a fresh term table that
+// shares these caches, which is how the streaming import keeps them across chunks.
+public class TermDictionary {
+    private final Function<String, String> localName;
+    private final Map<Node, Predicate> predicates;
+    private final Map<Node, String> labels;
+
+    // id + 1 per slot, 0 = free; the key of a slot is nodes[id]
+    private int[] table = new int[64];
+    private Node[] nodes = new Node[32];
+    private String[] iris = new String[32];
+    private int size;
+
+    public TermDictionary(Function<String, String> localName) {
+        this(localName, new HashMap<>(), new HashMap<>());
+    }
+
+    private TermDictionary(Function<String, String> localName, Map<Node, Predicate> predicates, Map<Node, String> labels) {
+        this.localName = localName;
+        this.predicates = predicates;
+        this.labels = labels;
+    }
+
+    // Empty term table sharing the predicate and label caches (same thread only)
+    public TermDictionary next() {
+        return new TermDictionary(localName, predicates, labels);
+    }
+
+    public int id(Node node) {
+        int mask = table.length - 1;
+        int i = mix(node.hashCode()) & mask;
+        for (int slot; (slot = table[i]) != 0; i = (i + 1) & mask) {
+            if (nodes[slot - 1].equals(node)) return slot - 1;
+        }
+        int id = size++;
+        if (id == nodes.length) {
+            nodes = Arrays.copyOf(nodes, id * 2);
+            iris = Arrays.copyOf(iris, id * 2);
+        }
+        nodes[id] = node;
+        iris[id] = node.isURI() ? node.getURI() : node.isBlank() ? "_bnode_" + node.getBlankNodeLabel() : node.toString();
+        table[i] = id + 1;
+        // keep the load factor below 1/2
+        if (size * 2 > table.length) rehash();
+        return id;
+    }
+
+    public String iri(int id) {
+        return iris[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Forget all terms but keep the allocated table (the predicate and label caches stay)
+    public void clear() {
+        Arrays.fill(table, 0);
+        Arrays.fill(nodes, 0, size, null);
+        Arrays.fill(iris, 0, size, null);
+        size = 0;
+    }
+
+    public Predicate predicate(Node p) {
+        Predicate predicate = predicates.get(p);
+        if (predicate == null) {
+            predicate = new Predicate(localName.apply(p.getURI()));
+            predicates.put(p, predicate);
+        }
+        return predicate;
+    }
+
+    // Neo4j label for an rdf:type object
+    public String label(Node type) {
+        String label = labels.get(type);
+        if (label == null) {
+            label = sanitize(localName.apply(type.isURI() ? type.getURI() : type.toString()));
+            labels.put(type, label);
+        }
+        return label;
+    }
+
+    // Every character outside [A-Za-z0-9_] becomes '_' (labels cannot be parameterised)
+    static String sanitize(String name) {
+        char[] chars = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z') && (c < '0' || c > '9') && c != '_') {
+                if (chars == null) chars = name.toCharArray();
+                chars[i] = '_';
+            }
+        }
+        return chars == null ? name : new String(chars);
+    }
+
+    private void rehash() {
+        int[] grown = new int[table.length * 2];
+        int mask = grown.length - 1;
+        for (int id = 0; id < size; id++) {
+            int i = mix(nodes[id].hashCode()) & mask;
+            while (grown[i] != 0) i = (i + 1) & mask;
+            grown[i] = id + 1;
+        }
+        table = grown;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // Property key and relationship type of a predicate
+    public static final class Predicate {
+        private final String key;
+        private final String relationshipType;
+
+        Predicate(String key) {
+            this.key = key;
+            this.relationshipType = key.toUpperCase();
+        }
+
+        public String getKey() { return key; }
+        public String getRelationshipType() { return relationshipType; }
+    }
+}
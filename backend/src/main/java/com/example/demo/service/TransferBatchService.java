@@ -0,0 +1,296 @@
+package com.example.demo.service;
+
+import com.example.demo.service.ReasoningService.ReasonerType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.RDFParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 过户流程批量推理服务
+ * 一次请求处理多个 TransferProcess 输入（NDJSON 每行一个，或 TriG/N-Quads 每个命名图一个），
+ * 在独立线程池中并行推理，共享同一份已编译规则；每个流程完成后立即回调输出结果
+ */
+@Service
+public class TransferBatchService {
+
+    /** NDJSON 媒体类型 */
+    public static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private ReasoningService reasoningService;
+
+    @Autowired
+    private ReasonerCache reasonerCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 并行推理线程数；0 表示 CPU 核数 */
+    @Value("${reasoning.batch.parallelism:0}")
+    private int parallelism;
+
+    /** 每个线程最多预读的输入数，限制同时驻留内存的模型数量 */
+    @Value("${reasoning.batch.prefetch-per-worker:4}")
+    private int prefetchPerWorker;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        AtomicInteger seq = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "transfer-batch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 批量推理
+     *
+     * @param in 请求体：NDJSON（每行 {"id": ..., "rdfData": ...}）或 TriG / N-Quads（每个命名图一个流程）
+     * @param contentType 请求 Content-Type
+     * @param includeData 是否在每个结果中附带推理后的 Turtle 数据
+     * @param sink 每个流程完成后调用（在调用线程中按完成顺序执行）
+     * @return 汇总统计
+     */
+    public Map<String, Object> inferBatch(InputStream in, String contentType, boolean includeData,
+                                          Consumer<Map<String, Object>> sink) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        String rules = reasoningService.loadTransferProcessRules();
+        // 预先编译规则，避免多个线程同时编译同一规则集
+        reasonerCache.getReasoner(ReasonerType.CUSTOM, rules);
+
+        Iterator<TransferInput> inputs = readInputs(in, contentType);
+        CompletionService<Map<String, Object>> completion = new ExecutorCompletionService<>(executor);
+        int maxInFlight = parallelism * Math.max(1, prefetchPerWorker);
+        int inFlight = 0;
+        int total = 0;
+        int failed = 0;
+        int withViolations = 0;
+
+        try {
+            while (inputs.hasNext()) {
+                if (inFlight >= maxInFlight) {
+                    Map<String, Object> result = completion.take().get();
+                    inFlight--;
+                    failed += Boolean.TRUE.equals(result.get("success")) ? 0 : 1;
+                    withViolations += Boolean.TRUE.equals(result.get("hasViolations")) ? 1 : 0;
+                    sink.accept(result);
+                }
+                TransferInput input = inputs.next();
+                completion.submit(() -> inferOne(input, rules, includeData));
+                inFlight++;
+                total++;
+            }
+            for (; inFlight > 0; inFlight--) {
+                Map<String, Object> result = completion.take().get();
+                failed += Boolean.TRUE.equals(result.get("success")) ? 0 : 1;
+                withViolations += Boolean.TRUE.equals(result.get("hasViolations")) ? 1 : 0;
+                sink.accept(result);
+            }
+        } catch (ExecutionException e) {
+            // inferOne 自行捕获异常，这里只可能是线程池内部错误
+            throw new IllegalStateException("Batch inference failed: " + e.getCause(), e.getCause());
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("total", total);
+        summary.put("succeeded", total - failed);
+        summary.put("failed", failed);
+        summary.put("withViolations", withViolations);
+        summary.put("parallelism", parallelism);
+        summary.put("executionTime", System.currentTimeMillis() - startTime);
+        return summary;
+    }
+
+    private Map<String, Object> inferOne(TransferInput input, String rules, boolean includeData) {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> result;
+        try {
+            if (input.error != null) {
+                throw new IllegalArgumentException(input.error);
+            }
+            Model model = input.model != null ? input.model : reasoningService.parseRdfData(input.rdfData);
+            long parseTime = System.currentTimeMillis() - startTime;
+            result = reasoningService.inferTransferProcess(model, rules, includeData);
+            result.put("parseTime", parseTime);
+        } catch (Exception e) {
+            result = new HashMap<>();
+            result.put("success", false);
+            result.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        result.put("id", input.id);
+        result.put("executionTime", System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    /**
+     * 是否为批量推理支持的请求 Content-Type（为空时按 NDJSON 处理）
+     */
+    public static boolean isSupported(String contentType) {
+        String mediaType = mediaType(contentType);
+        return isNdjson(mediaType) || quadsLang(mediaType) != null;
+    }
+
+    /**
+     * 不支持的 Content-Type 的错误信息
+     */
+    public static String unsupportedMessage(String contentType) {
+        return "Unsupported batch content type: " + contentType
+            + " (expected " + NDJSON + ", application/trig or application/n-quads)";
+    }
+
+    private Iterator<TransferInput> readInputs(InputStream in, String contentType) {
+        String mediaType = mediaType(contentType);
+        if (isNdjson(mediaType)) {
+            return new NdjsonInputs(in);
+        }
+        Lang lang = quadsLang(mediaType);
+        if (lang == null) {
+            throw new IllegalArgumentException(unsupportedMessage(contentType));
+        }
+        return readDataset(in, lang);
+    }
+
+    private static String mediaType(String contentType) {
+        return contentType == null ? NDJSON : contentType.split(";")[0].trim().toLowerCase();
+    }
+
+    private static boolean isNdjson(String mediaType) {
+        return NDJSON.equals(mediaType) || "application/jsonl".equals(mediaType) || "application/json".equals(mediaType);
+    }
+
+    private static Lang quadsLang(String mediaType) {
+        Lang lang = RDFLanguages.contentTypeToLang(mediaType);
+        return lang != null && RDFLanguages.isQuads(lang) ? lang : null;
+    }
+
+    /**
+     * TriG / N-Quads：每个命名图是一个流程，默认图非空时也作为一个流程（id 为 "default"）
+     * 数据集整体解析（N-Quads 中同一图的四元组不保证相邻），每个图复制为独立模型以便并发推理
+     */
+    private Iterator<TransferInput> readDataset(InputStream in, Lang lang) {
+        Dataset dataset = DatasetFactory.create();
+        RDFParser.source(in).lang(lang).parse(dataset.asDatasetGraph());
+        List<TransferInput> inputs = new ArrayList<>();
+        if (!dataset.getDefaultModel().isEmpty()) {
+            inputs.add(TransferInput.of("default", dataset.getDefaultModel()));
+        }
+        dataset.listNames().forEachRemaining(name -> inputs.add(TransferInput.of(name, dataset.getNamedModel(name))));
+        return inputs.iterator();
+    }
+
+    /**
+     * 按需逐行读取 NDJSON，不把整个请求体读入内存；单行格式错误只影响该行的结果
+     */
+    private class NdjsonInputs implements Iterator<TransferInput> {
+        private final BufferedReader reader;
+        private TransferInput next;
+        private int line;
+
+        NdjsonInputs(InputStream in) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            try {
+                String text;
+                while ((text = reader.readLine()) != null) {
+                    line++;
+                    if (!text.trim().isEmpty()) {
+                        next = parseLine(text);
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public TransferInput next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            TransferInput result = next;
+            next = null;
+            return result;
+        }
+
+        private TransferInput parseLine(String text) {
+            String fallbackId = "line-" + line;
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                String id = node.hasNonNull("id") ? node.get("id").asText() : fallbackId;
+                if (!node.hasNonNull("rdfData") || node.get("rdfData").asText().trim().isEmpty()) {
+                    return TransferInput.failed(id, "rdfData is required");
+                }
+                return TransferInput.of(id, node.get("rdfData").asText());
+            } catch (IOException e) {
+                return TransferInput.failed(fallbackId, "Invalid JSON: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个流程的输入：RDF 文本（NDJSON）或已解析的模型（TriG / N-Quads）
+     */
+    private static final class TransferInput {
+        final String id;
+        final String rdfData;
+        final Model model;
+        final String error;
+
+        private TransferInput(String id, String rdfData, Model model, String error) {
+            this.id = id;
+            this.rdfData = rdfData;
+            this.model = model;
+            this.error = error;
+        }
+
+        static TransferInput of(String id, String rdfData) {
+            return new TransferInput(id, rdfData, null, null);
+        }
+
+        static TransferInput of(String id, Model graph) {
+            Model copy = org.apache.jena.rdf.model.ModelFactory.createDefaultModel();
+            copy.add(graph);
+            return new TransferInput(id, null, copy, null);
+        }
+
+        static TransferInput failed(String id, String error) {
+            return new TransferInput(id, null, null, error);
+        }
+    }
+}
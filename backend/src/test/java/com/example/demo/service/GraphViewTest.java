@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphViewTest {
+
+    private static GraphView view(String cursor) {
+        return new GraphView(cursor, 100, null, 1, null, null, null, 50, 0);
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        String iri = "http://example.org/站点/a?b=c&d#e";
+        String cursor = GraphView.encodeCursor(iri);
+        assertFalse(cursor.contains("="));
+        assertFalse(cursor.contains("+"));
+        assertFalse(cursor.contains("/"));
+        assertEquals(iri, view(cursor).parameters().get("after"));
+    }
+
+    @Test
+    void missingCursorStartsAtTheBeginning() {
+        assertEquals("", view(null).parameters().get("after"));
+        assertEquals("", view("").parameters().get("after"));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> view("not base64!"));
+        assertTrue(e.getMessage().contains("not base64!"));
+    }
+
+    @Test
+    void keepsIdentifiersAndQuotesThemInCypher() {
+        GraphView view = new GraphView(null, 0, "http://example.org/a", 1, Collections.singletonList(" Site-A "),
+                Collections.singletonList("HAS-PART"), Arrays.asList("名称", "name`x"), 50, 0);
+        assertEquals(Collections.singletonList("Site-A"), view.parameters().get("labels"));
+        assertEquals(Collections.singletonList("HAS-PART"), view.parameters().get("types"));
+        assertEquals(Arrays.asList("名称", "name`x"), view.getProperties());
+        assertEquals("{`名称`: n.`名称`, `name``x`: n.`name``x`}", view.projection());
+        assertTrue(view.matchClause("Resource").contains("-[:`HAS-PART`*0..1]-"));
+        assertEquals(1, view.getLimit());
+    }
+}
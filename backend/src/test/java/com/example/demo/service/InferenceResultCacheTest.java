@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InferenceResultCacheTest {
+
+    private static Model parse(String data, Lang lang) {
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.fromString(data).lang(lang).parse(model);
+        return model;
+    }
+
+    @Test
+    void hashIgnoresBlankNodeLabelsAndTripleOrder() {
+        Model a = parse("<http://ex.org/s> <http://ex.org/p> _:x .\n"
+                + "_:x <http://ex.org/name> \"a\" .\n"
+                + "_:x <http://ex.org/next> _:y .\n"
+                + "_:y <http://ex.org/name> \"b\" .\n", Lang.NTRIPLES);
+        Model b = parse("_:n2 <http://ex.org/name> \"b\" .\n"
+                + "_:n1 <http://ex.org/next> _:n2 .\n"
+                + "_:n1 <http://ex.org/name> \"a\" .\n"
+                + "<http://ex.org/s> <http://ex.org/p> _:n1 .\n", Lang.NTRIPLES);
+
+        String hash = InferenceResultCache.canonicalHash(a);
+        assertNotNull(hash);
+        assertEquals(hash, InferenceResultCache.canonicalHash(b));
+    }
+
+    @Test
+    void hashIgnoresSerialisationFormat() {
+        Model turtle = parse("<http://ex.org/s> <http://ex.org/p> [ <http://ex.org/name> \"a\" ] .", Lang.TURTLE);
+        Model ntriples = parse("<http://ex.org/s> <http://ex.org/p> _:z .\n_:z <http://ex.org/name> \"a\" .\n", Lang.NTRIPLES);
+        assertEquals(InferenceResultCache.canonicalHash(turtle), InferenceResultCache.canonicalHash(ntriples));
+    }
+
+    @Test
+    void hashTellsBlankNodeStructureApart() {
+        // 同样的三元组形状，但名字挂在不同的空白节点上
+        Model a = parse("_:x <http://ex.org/next> _:y .\n_:x <http://ex.org/name> \"a\" .\n_:y <http://ex.org/name> \"b\" .\n", Lang.NTRIPLES);
+        Model b = parse("_:x <http://ex.org/next> _:y .\n_:x <http://ex.org/name> \"b\" .\n_:y <http://ex.org/name> \"a\" .\n", Lang.NTRIPLES);
+        assertNotEquals(InferenceResultCache.canonicalHash(a), InferenceResultCache.canonicalHash(b));
+    }
+
+    @Test
+    void hashCountsPrefixes() {
+        Model a = parse("<http://ex.org/s> <http://ex.org/p> \"o\" .", Lang.TURTLE);
+        Model b = parse("@prefix ex: <http://ex.org/> .\nex:s ex:p \"o\" .", Lang.TURTLE);
+        assertNotEquals(InferenceResultCache.canonicalHash(a), InferenceResultCache.canonicalHash(b));
+    }
+
+    @Test
+    void symmetricBlankNodesHaveNoHash() {
+        Model model = parse("_:a <http://ex.org/knows> _:b .\n_:b <http://ex.org/knows> _:a .\n", Lang.NTRIPLES);
+        assertNull(InferenceResultCache.canonicalHash(model));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiteralCodecTest {
+
+    private static Node typed(String lexical, XSDDatatype type) {
+        return NodeFactory.createLiteral(lexical, type);
+    }
+
+    // value -> sidecar -> literal gives back the same value and datatype
+    private static void assertRoundTrip(Node literal) {
+        Object value = LiteralCodec.value(literal);
+        String datatype = LiteralCodec.datatype(literal);
+        Node back = LiteralCodec.literal(value, datatype);
+        assertEquals(literal.getLiteralDatatypeURI(), back.getLiteralDatatypeURI(), literal.toString());
+        assertEquals(literal.getLiteralLanguage(), back.getLiteralLanguage(), literal.toString());
+        assertTrue(literal.getLiteralValue().equals(back.getLiteralValue())
+                || literal.getLiteral().sameValueAs(back.getLiteral()), literal + " -> " + back);
+    }
+
+    @Test
+    void roundTripsEachNativeType() {
+        assertRoundTrip(typed("42", XSDDatatype.XSDinteger));
+        assertRoundTrip(typed("-7", XSDDatatype.XSDlong));
+        assertRoundTrip(typed("7", XSDDatatype.XSDint));
+        assertRoundTrip(typed("3", XSDDatatype.XSDunsignedByte));
+        assertRoundTrip(typed("2.5", XSDDatatype.XSDdecimal));
+        assertRoundTrip(typed("1.0E3", XSDDatatype.XSDdouble));
+        assertRoundTrip(typed("INF", XSDDatatype.XSDdouble));
+        assertRoundTrip(typed("1.5", XSDDatatype.XSDfloat));
+        assertRoundTrip(typed("true", XSDDatatype.XSDboolean));
+        assertRoundTrip(typed("2024-02-29", XSDDatatype.XSDdate));
+        assertRoundTrip(typed("2024-02-29T10:15:30Z", XSDDatatype.XSDdateTime));
+        assertRoundTrip(typed("2024-02-29T10:15:30+08:00", XSDDatatype.XSDdateTime));
+        assertRoundTrip(NodeFactory.createLiteral("plain"));
+        assertRoundTrip(NodeFactory.createLiteral("hallo", "de"));
+        assertRoundTrip(NodeFactory.createLiteral("P1D", TypeMapper.getInstance().getSafeTypeByName(XSDDatatype.XSDduration.getURI())));
+    }
+
+    @Test
+    void storesNativeValues() {
+        assertEquals(42L, LiteralCodec.value(typed("42", XSDDatatype.XSDinteger)));
+        assertEquals(500L, LiteralCodec.value(typed("0500", XSDDatatype.XSDinteger)));
+        assertEquals(2.5, LiteralCodec.value(typed("2.5", XSDDatatype.XSDdecimal)));
+        assertEquals(Boolean.FALSE, LiteralCodec.value(typed("0", XSDDatatype.XSDboolean)));
+        assertEquals(LocalDate.of(2024, 2, 29), LiteralCodec.value(typed("2024-02-29", XSDDatatype.XSDdate)));
+        assertTrue(LiteralCodec.value(typed("2024-02-29T10:15:30Z", XSDDatatype.XSDdateTime)) instanceof OffsetDateTime);
+        assertEquals("xsd:integer", LiteralCodec.datatype(typed("42", XSDDatatype.XSDinteger)));
+        assertEquals(LiteralCodec.PLAIN, LiteralCodec.datatype(NodeFactory.createLiteral("plain")));
+        assertEquals("@de", LiteralCodec.datatype(NodeFactory.createLiteral("hallo", "de")));
+    }
+
+    @Test
+    void keepsDecimalsADoubleCannotHold() {
+        String lexical = "0.1000000000000000000000000001";
+        Node literal = typed(lexical, XSDDatatype.XSDdecimal);
+        assertEquals(lexical, LiteralCodec.value(literal));
+        Node back = LiteralCodec.literal(LiteralCodec.value(literal), LiteralCodec.datatype(literal));
+        assertEquals(lexical, back.getLiteralLexicalForm());
+        assertEquals(XSDDatatype.XSDdecimal.getURI(), back.getLiteralDatatypeURI());
+    }
+
+    @Test
+    void keepsDateTimeWithoutTimezoneLexical() {
+        Node literal = typed("2024-02-29T10:15:30", XSDDatatype.XSDdateTime);
+        assertEquals("2024-02-29T10:15:30", LiteralCodec.value(literal));
+        assertRoundTrip(literal);
+    }
+
+    @Test
+    void keepsIllTypedAndOutOfRangeLexical() {
+        assertEquals("abc", LiteralCodec.value(typed("abc", XSDDatatype.XSDinteger)));
+        assertEquals("99999999999999999999", LiteralCodec.value(typed("99999999999999999999", XSDDatatype.XSDinteger)));
+        assertEquals("0x10", LiteralCodec.value(typed("0x10", XSDDatatype.XSDdouble)));
+    }
+
+    @Test
+    void readsMixedTypeListsElementByElement() {
+        List<Object> values = Arrays.asList(1L, "x", "2024-02-29T10:15:30", "hallo");
+        List<String> datatypes = Arrays.asList("xsd:integer", LiteralCodec.PLAIN, "xsd:dateTime", "@de");
+        List<Node> literals = LiteralCodec.literals(values, datatypes);
+        assertEquals(4, literals.size());
+        assertEquals(typed("1", XSDDatatype.XSDinteger), literals.get(0));
+        assertEquals(NodeFactory.createLiteral("x"), literals.get(1));
+        assertEquals(typed("2024-02-29T10:15:30", XSDDatatype.XSDdateTime), literals.get(2));
+        assertEquals(NodeFactory.createLiteral("hallo", "de"), literals.get(3));
+    }
+
+    @Test
+    void readsValuesWithoutSidecarWithTheirDefaultDatatype() {
+        assertEquals(typed("5", XSDDatatype.XSDinteger), LiteralCodec.literal(5L, null));
+        assertEquals(typed("true", XSDDatatype.XSDboolean), LiteralCodec.literal(true, null));
+        assertEquals(NodeFactory.createLiteral("s"), LiteralCodec.literal("s", null));
+        assertEquals(2, LiteralCodec.literals(Arrays.asList(1L, 2L), null).size());
+    }
+}
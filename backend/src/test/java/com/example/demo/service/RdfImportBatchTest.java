@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import org.apache.jena.datatypes.xsd.XSDDatatype;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RdfImportBatchTest {
+
+    private final TermDictionary terms = new TermDictionary(RdfService::localName);
+    private final RdfImportBatch batch = new RdfImportBatch(terms);
+
+    private int subject(String name) {
+        return terms.id(NodeFactory.createURI("http://ex.org/" + name));
+    }
+
+    @Test
+    void groupsValuesPerSubjectAndKeyInSourceOrder() {
+        int a = subject("a");
+        int b = subject("b");
+        batch.addProperty(a, "tag", NodeFactory.createLiteral("x"));
+        batch.addProperty(b, "tag", NodeFactory.createLiteral("z"));
+        batch.addProperty(a, "tag", NodeFactory.createLiteral("y"));
+
+        List<Map<String, Object>> rows = batch.getPropertyRows();
+        assertEquals(2, rows.size());
+        assertEquals("http://ex.org/a", rows.get(0).get("iri"));
+        assertEquals(Arrays.asList("x", "y"), rows.get(0).get("vs"));
+        assertEquals(Arrays.asList(LiteralCodec.PLAIN, LiteralCodec.PLAIN), rows.get(0).get("ds"));
+        assertEquals(Collections.singletonList("z"), rows.get(1).get("vs"));
+    }
+
+    @Test
+    void dedupesOnStoredValueAndDatatype() {
+        int a = subject("a");
+        batch.addProperty(a, "n", NodeFactory.createLiteral("1", XSDDatatype.XSDinteger));
+        batch.addProperty(a, "n", NodeFactory.createLiteral("01", XSDDatatype.XSDinteger));
+        // same value, other datatype: a distinct literal
+        batch.addProperty(a, "n", NodeFactory.createLiteral("1", XSDDatatype.XSDint));
+        batch.addProperty(a, "n", NodeFactory.createLiteral("1"));
+
+        Map<String, Object> row = batch.getPropertyRows().get(0);
+        assertEquals(Arrays.asList(1L, 1L, "1"), row.get("vs"));
+        assertEquals(Arrays.asList("xsd:integer", "xsd:int", LiteralCodec.PLAIN), row.get("ds"));
+        assertEquals(Arrays.asList("1", "1", "1"), row.get("ss"));
+    }
+
+    @Test
+    void clearEmptiesRowsAndTerms() {
+        batch.addNode(subject("a"));
+        batch.addProperty(subject("a"), "tag", NodeFactory.createLiteral("x"));
+        assertEquals(2, batch.size());
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertEquals(0, terms.size());
+        assertTrue(batch.getPropertyRows().isEmpty());
+        assertTrue(batch.getNodeRows().isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 导入写入 Neo4j 的属性合并（PROPERTY_MERGE）：重复导入幂等，多值谓词跨导入累积为列表
+ * 使用进程内 Neo4j（neo4j-harness，仅 Bolt）
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "logging.level.root=WARN")
+class RdfImportNeo4jTest {
+
+    private static final String PREFIXES = "@prefix ex: <http://ex.org/> .\n@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n";
+
+    private static Neo4j neo4j;
+
+    @Autowired
+    private RdfService rdfService;
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @BeforeAll
+    static void startNeo4j() {
+        neo4j = Neo4jBuilders.newInProcessBuilder().withDisabledServer().build();
+    }
+
+    @DynamicPropertySource
+    static void neo4jProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.neo4j.uri", () -> neo4j.boltURI().toString());
+    }
+
+    @AfterAll
+    static void stopNeo4j() {
+        neo4j.close();
+    }
+
+    @BeforeEach
+    void clear() {
+        neo4j.defaultDatabaseService().executeTransactionally("MATCH (n) DETACH DELETE n");
+    }
+
+    private void importTurtle(String turtle) {
+        rdfService.importRdf(PREFIXES + turtle, "text/turtle");
+    }
+
+    // a 的属性 key 及其 key__dt / key__prov
+    private Map<String, Object> property(String key) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("key", key);
+        params.put("dt", key + LiteralCodec.DATATYPE_SUFFIX);
+        params.put("prov", key + InferenceWriter.PROV_SUFFIX);
+        return neo4jClient.query("MATCH (n:Resource {iri: 'http://ex.org/a'}) RETURN n[$key] AS v, n[$dt] AS dt, n[$prov] AS prov")
+                .bindAll(params).fetch().one().orElseThrow(AssertionError::new);
+    }
+
+    @Test
+    void reimportIsIdempotent() {
+        String data = "ex:a ex:age 30 ; ex:tag \"x\", \"y\" ; ex:name \"A\"@en .";
+        importTurtle(data);
+        importTurtle(data);
+
+        assertEquals(30L, property("age").get("v"));
+        assertEquals("xsd:integer", property("age").get("dt"));
+        assertEquals(Arrays.asList("x", "y"), property("tag").get("v"));
+        assertNull(property("tag").get("dt"));
+        assertEquals("A", property("name").get("v"));
+        assertEquals("@en", property("name").get("dt"));
+    }
+
+    @Test
+    void valuesAccumulateAcrossImports() {
+        importTurtle("ex:a ex:tag \"x\" .");
+        importTurtle("ex:a ex:tag \"y\" .");
+        importTurtle("ex:a ex:tag \"x\" .");
+
+        assertEquals(Arrays.asList("x", "y"), property("tag").get("v"));
+        assertNull(property("tag").get("dt"));
+    }
+
+    @Test
+    void equalValuesInOtherSpellingsAreNotRepeated() {
+        importTurtle("ex:a ex:n 1 .");
+        importTurtle("ex:a ex:n \"01\"^^xsd:integer .");
+        assertEquals(1L, property("n").get("v"));
+
+        importTurtle("ex:a ex:m \"1\"^^xsd:integer, \"01\"^^xsd:integer .");
+        assertEquals(1L, property("m").get("v"));
+    }
+
+    @Test
+    void mixedTypesAreStoredAsLexicalForms() {
+        importTurtle("ex:a ex:v 1 .");
+        importTurtle("ex:a ex:v \"one\" .");
+        importTurtle("ex:a ex:v 1 .");
+
+        assertEquals(Arrays.asList("1", "one"), property("v").get("v"));
+        assertEquals(Arrays.asList("xsd:integer", LiteralCodec.PLAIN), property("v").get("dt"));
+    }
+
+    @Test
+    void importedValueReplacesInferredValue() {
+        neo4jClient.query("CREATE (:Resource {iri: 'http://ex.org/a', tag: 'inferred', tag__prov: 'run-1', __prov: true})").run();
+        importTurtle("ex:a ex:tag \"x\" .");
+
+        Map<String, Object> tag = property("tag");
+        assertEquals("x", tag.get("v"));
+        assertNull(tag.get("prov"));
+    }
+}
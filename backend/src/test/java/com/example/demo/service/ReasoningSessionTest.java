@@ -0,0 +1,142 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFParser;
+import org.apache.jena.reasoner.rulesys.GenericRuleReasoner;
+import org.apache.jena.reasoner.rulesys.Rule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReasoningSessionTest {
+
+    private static final String EX = "http://ex.org/";
+
+    private static final String RULES = "@prefix ex: <" + EX + ">.\n"
+            + "[link: (?a ex:linkedTo ?b) -> (?b ex:linkedTo ?a)]\n"
+            + "[idle: (?s ex:status ex:Up) noValue(?s ex:alarm) -> (?s ex:state ex:Idle)]\n";
+
+    private static ReasoningSession session() {
+        List<Rule> rules = Rule.parseRules(RULES);
+        GenericRuleReasoner reasoner = new GenericRuleReasoner(rules);
+        reasoner.setMode(GenericRuleReasoner.FORWARD_RETE);
+        return new ReasoningSession("test", "hash", reasoner, rules);
+    }
+
+    private static Model triples(String ntriples) {
+        Model model = ModelFactory.createDefaultModel();
+        RDFParser.fromString(ntriples).lang(Lang.NTRIPLES).parse(model);
+        return model;
+    }
+
+    private static Triple triple(String s, String p, String o) {
+        return Triple.create(NodeFactory.createURI(EX + s), NodeFactory.createURI(EX + p), NodeFactory.createURI(EX + o));
+    }
+
+    @Test
+    void additionsAreMatchedIncrementally() {
+        ReasoningSession session = session();
+        ReasoningSession.Delta delta = session.apply(triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> ."), null);
+
+        assertFalse(delta.isRebuilt());
+        assertEquals(Collections.singletonList(triple("b", "linkedTo", "a")), delta.getDerived());
+        assertTrue(delta.getRetracted().isEmpty());
+        assertEquals(1L, delta.getSequence());
+    }
+
+    @Test
+    void removalsRebuildAndRetract() {
+        ReasoningSession session = session();
+        Model link = triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> .");
+        session.apply(link, null);
+
+        ReasoningSession.Delta delta = session.apply(null, link);
+        assertTrue(delta.isRebuilt());
+        assertTrue(delta.getDerived().isEmpty());
+        assertEquals(Collections.singletonList(triple("b", "linkedTo", "a")), delta.getRetracted());
+        assertEquals(0, session.getStatus().get("derivedTriples"));
+    }
+
+    @Test
+    void removingAnUnknownTripleStaysIncremental() {
+        ReasoningSession session = session();
+        session.apply(triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> ."), null);
+
+        ReasoningSession.Delta delta = session.apply(null, triples("<http://ex.org/x> <http://ex.org/linkedTo> <http://ex.org/y> ."));
+        assertFalse(delta.isRebuilt());
+        assertTrue(delta.isEmpty());
+    }
+
+    @Test
+    void addingANegatedPredicateRetractsTheNoValueConclusion() {
+        ReasoningSession session = session();
+        ReasoningSession.Delta up = session.apply(triples("<http://ex.org/s> <http://ex.org/status> <http://ex.org/Up> ."), null);
+        assertEquals(Collections.singletonList(triple("s", "state", "Idle")), up.getDerived());
+
+        ReasoningSession.Delta alarm = session.apply(triples("<http://ex.org/s> <http://ex.org/alarm> <http://ex.org/A1> ."), null);
+        assertTrue(alarm.isRebuilt());
+        assertEquals(Collections.singletonList(triple("s", "state", "Idle")), alarm.getRetracted());
+
+        ReasoningSession.Delta cleared = session.apply(null, triples("<http://ex.org/s> <http://ex.org/alarm> <http://ex.org/A1> ."));
+        assertTrue(cleared.isRebuilt());
+        assertEquals(Collections.singletonList(triple("s", "state", "Idle")), cleared.getDerived());
+    }
+
+    @Test
+    void incrementalAndRebuiltDeductionsAgree() {
+        ReasoningSession incremental = session();
+        incremental.apply(triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> ."), null);
+        incremental.apply(triples("<http://ex.org/b> <http://ex.org/linkedTo> <http://ex.org/c> ."), null);
+
+        ReasoningSession rebuilt = session();
+        rebuilt.apply(triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> .\n"
+                + "<http://ex.org/b> <http://ex.org/linkedTo> <http://ex.org/c> .\n"
+                + "<http://ex.org/x> <http://ex.org/linkedTo> <http://ex.org/y> ."), null);
+        rebuilt.apply(null, triples("<http://ex.org/x> <http://ex.org/linkedTo> <http://ex.org/y> ."));
+
+        assertTrue(incremental.snapshot().isIsomorphicWith(rebuilt.snapshot()));
+        assertEquals(incremental.getStatus().get("derivedTriples"), rebuilt.getStatus().get("derivedTriples"));
+    }
+
+    @Test
+    void subscribersSeeNonEmptyDeltasUntilClosed() {
+        ReasoningSession session = session();
+        List<ReasoningSession.Delta> seen = new ArrayList<>();
+        boolean[] closed = {false};
+        assertTrue(session.subscribe(new ReasoningSession.Subscriber() {
+            @Override
+            public void offer(ReasoningSession.Delta delta) {
+                seen.add(delta);
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        }));
+
+        session.apply(triples("<http://ex.org/a> <http://ex.org/linkedTo> <http://ex.org/b> ."), null);
+        session.apply(null, triples("<http://ex.org/x> <http://ex.org/linkedTo> <http://ex.org/y> ."));
+        assertEquals(1, seen.size());
+
+        session.close();
+        assertTrue(closed[0]);
+        assertFalse(session.subscribe(new ReasoningSession.Subscriber() {
+            @Override
+            public void offer(ReasoningSession.Delta delta) {
+            }
+
+            @Override
+            public void close() {
+            }
+        }));
+    }
+}
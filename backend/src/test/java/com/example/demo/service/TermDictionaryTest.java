@@ -0,0 +1,69 @@
+package com.example.demo.service;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermDictionaryTest {
+
+    private static Node uri(int i) {
+        return NodeFactory.createURI("http://example.org/r" + i);
+    }
+
+    @Test
+    void keepsIdsStableAcrossRehash() {
+        TermDictionary terms = new TermDictionary(RdfService::localName);
+        // far past the initial 64 slots
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, terms.id(uri(i)));
+        }
+        assertEquals(10_000, terms.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, terms.id(NodeFactory.createURI("http://example.org/r" + i)));
+            assertEquals("http://example.org/r" + i, terms.iri(i));
+        }
+        assertEquals(10_000, terms.size());
+    }
+
+    @Test
+    void namesBlankNodes() {
+        TermDictionary terms = new TermDictionary(RdfService::localName);
+        Node b = NodeFactory.createBlankNode("b1");
+        assertEquals("_bnode_b1", terms.iri(terms.id(b)));
+    }
+
+    @Test
+    void clearForgetsTermsButKeepsPredicates() {
+        TermDictionary terms = new TermDictionary(RdfService::localName);
+        Node p = NodeFactory.createURI("http://example.org/ns#hasName");
+        TermDictionary.Predicate predicate = terms.predicate(p);
+        for (int i = 0; i < 100; i++) terms.id(uri(i));
+
+        terms.clear();
+        assertEquals(0, terms.size());
+        assertEquals(0, terms.id(uri(99)));
+        assertEquals("http://example.org/r99", terms.iri(0));
+        assertSame(predicate, terms.predicate(p));
+    }
+
+    @Test
+    void nextStartsEmptyAndSharesCaches() {
+        TermDictionary terms = new TermDictionary(RdfService::localName);
+        Node p = NodeFactory.createURI("http://example.org/ns#hasName");
+        Node type = NodeFactory.createURI("http://example.org/ns#Site-A");
+        terms.id(uri(1));
+        terms.id(uri(2));
+
+        TermDictionary next = terms.next();
+        assertEquals(0, next.size());
+        assertEquals(0, next.id(uri(2)));
+        assertEquals(2, terms.size());
+        assertSame(terms.predicate(p), next.predicate(p));
+        assertEquals("hasName", next.predicate(p).getKey());
+        assertEquals("HASNAME", next.predicate(p).getRelationshipType());
+        assertEquals("Site_A", terms.label(type));
+        assertSame(terms.label(type), next.label(type));
+    }
+}